@@ -0,0 +1,57 @@
+package study.querydslstudy.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * 워커 스레드 하나가 쓰는 응답시간 기록 (스레드마다 하나씩 만들어서 락 없이 쓴다)
+ * 끝나면 merge 해서 percentile 을 계산한다.
+ */
+class LatencyRecorder {
+
+    private long[] nanos = new long[1024];
+    private int count;
+    private long errors;
+
+    void record(long latencyNanos, boolean success) {
+        if (count == nanos.length) {
+            nanos = Arrays.copyOf(nanos, count * 2);
+        }
+        nanos[count++] = latencyNanos;
+        if (!success) {
+            errors++;
+        }
+    }
+
+    static LatencyRecorder merge(Iterable<LatencyRecorder> recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        for (LatencyRecorder recorder : recorders) {
+            long[] copy = Arrays.copyOf(merged.nanos, Math.max(merged.nanos.length, merged.count + recorder.count));
+            System.arraycopy(recorder.nanos, 0, copy, merged.count, recorder.count);
+            merged.nanos = copy;
+            merged.count += recorder.count;
+            merged.errors += recorder.errors;
+        }
+        Arrays.sort(merged.nanos, 0, merged.count);
+        return merged;
+    }
+
+    int count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    /**
+     * merge 된(정렬된) 기록에서만 호출한다.
+     * @param percentile 0~100
+     */
+    double percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return nanos[Math.max(0, Math.min(index, count - 1))] / 1_000_000.0;
+    }
+}
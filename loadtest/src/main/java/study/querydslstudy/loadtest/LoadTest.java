@@ -0,0 +1,215 @@
+package study.querydslstudy.loadtest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 회원 API 부하 테스트
+ * 서버는 loadtest 프로필로 먼저 띄운다. (메모리 H2 + InitMember 데이터)
+ * <pre>
+ * ./gradlew bootRun --args='--spring.profiles.active=loadtest --app.init.members=1000000'
+ * ./gradlew :loadtest:run -PloadtestArgs="--scenario=all --concurrency=16 --duration=30"
+ * </pre>
+ * 시나리오마다 처리량(req/s)과 응답시간 p50/p95/p99 를 출력하고,
+ * 그때의 커넥션 풀 크기(actuator hikaricp.connections.max)와 함께 CSV 에 이어쓴다.
+ * 풀 크기를 바꿔가며 돌리면 풀 크기 대비 처리량을 비교할수 있다.
+ *
+ * 옵션 (--key=value)
+ * - base-url : 기본 http://localhost:8080
+ * - scenario : all | v1_search | v2_deep_paging | v3_deep_paging | v3_count | mixed (콤마로 여러개)
+ * - concurrency : 동시 요청 스레드 수, 기본 16
+ * - duration : 시나리오당 측정 시간(초), 기본 30
+ * - warmup : 측정 전 버리는 시간(초), 기본 5
+ * - request-timeout-ms : X-Request-Timeout-Ms 헤더로 보낼 요청 마감, 기본 보내지 않음
+ * - out : 결과 CSV, 기본 build/loadtest-results.csv
+ */
+public class LoadTest {
+
+    private static final Pattern TOTAL_ELEMENTS = Pattern.compile("\"totalElements\"\\s*:\\s*(\\d+)");
+    private static final Pattern MEMBER_ID = Pattern.compile("\"memberId\"\\s*:\\s*(\\d+)");
+    private static final Pattern METRIC_VALUE = Pattern.compile("\"value\"\\s*:\\s*([0-9.Ee+-]+)");
+    private static final String CSV_HEADER =
+            "time,scenario,concurrency,duration_s,pool_size,requests,errors,throughput_rps,p50_ms,p95_ms,p99_ms,max_ms";
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final Map<String, String> options;
+    private final String baseUrl;
+    private final int concurrency;
+    private final String requestTimeoutMs;
+
+    LoadTest(Map<String, String> options) {
+        this.options = options;
+        this.baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        this.concurrency = Integer.parseInt(options.getOrDefault("concurrency", "16"));
+        this.requestTimeoutMs = options.get("request-timeout-ms");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadTest(parse(args)).run();
+    }
+
+    void run() throws Exception {
+        Scenario.Target target = discover();
+        System.out.printf("target=%s, members=%d, concurrency=%d%n", baseUrl, target.totalMembers(), concurrency);
+
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "5")));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Path out = Path.of(options.getOrDefault("out", "build/loadtest-results.csv"));
+
+        for (Scenario scenario : scenarios(options.getOrDefault("scenario", "all"))) {
+            drive(scenario, target, warmup); // JIT, 쿼리 플랜 캐시, 커넥션 풀 데우기
+            LatencyRecorder result = drive(scenario, target, duration);
+            report(scenario, duration, poolSize(), result, out);
+        }
+    }
+
+    /**
+     * 첫 페이지로 전체 회원수와 PATCH 에 쓸 회원 id 를 가져온다.
+     */
+    private Scenario.Target discover() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/v2/members?page=0&size=1000")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("cannot read members. status=" + response.statusCode());
+        }
+
+        Matcher total = TOTAL_ELEMENTS.matcher(response.body());
+        long totalMembers = total.find() ? Long.parseLong(total.group(1)) : 0;
+        long[] memberIds = MEMBER_ID.matcher(response.body()).results()
+                .mapToLong(m -> Long.parseLong(m.group(1)))
+                .toArray();
+        if (memberIds.length == 0) {
+            throw new IllegalStateException("no members. start the server with --spring.profiles.active=loadtest");
+        }
+        return new Scenario.Target(baseUrl, totalMembers, memberIds);
+    }
+
+    /**
+     * concurrency 개의 스레드가 duration 동안 쉬지 않고 요청을 보낸다. (closed model)
+     */
+    private LatencyRecorder drive(Scenario scenario, Scenario.Target target, Duration duration) throws Exception {
+        long end = System.nanoTime() + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<LatencyRecorder>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                futures.add(workers.submit(() -> {
+                    LatencyRecorder recorder = new LatencyRecorder();
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = withDeadline(scenario.next(target));
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            success = status < 400;
+                        } catch (IOException e) {
+                            success = false;
+                        }
+                        recorder.record(System.nanoTime() - start, success);
+                    }
+                    return recorder;
+                }));
+            }
+
+            List<LatencyRecorder> recorders = new ArrayList<>();
+            for (Future<LatencyRecorder> future : futures) {
+                recorders.add(future.get());
+            }
+            return LatencyRecorder.merge(recorders);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private HttpRequest withDeadline(HttpRequest request) {
+        if (requestTimeoutMs == null) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("X-Request-Timeout-Ms", requestTimeoutMs)
+                .build();
+    }
+
+    /**
+     * @return 현재 maximum-pool-size, actuator 를 못 읽으면 -1
+     */
+    private int poolSize() {
+        try {
+            HttpResponse<String> response = client.send(
+                    HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/metrics/hikaricp.connections.max")).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            Matcher value = METRIC_VALUE.matcher(response.body());
+            return response.statusCode() == 200 && value.find() ? (int) Double.parseDouble(value.group(1)) : -1;
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private void report(Scenario scenario, Duration duration, int poolSize,
+                        LatencyRecorder result, Path out) throws IOException {
+        double throughput = result.count() / (double) duration.toSeconds();
+        System.out.printf(Locale.ROOT,
+                "%-15s pool=%3d requests=%8d errors=%6d throughput=%9.1f req/s p50=%8.2fms p95=%8.2fms p99=%8.2fms max=%8.2fms%n",
+                scenario, poolSize, result.count(), result.errors(), throughput,
+                result.percentileMs(50), result.percentileMs(95), result.percentileMs(99), result.percentileMs(100));
+
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        if (!Files.exists(out)) {
+            Files.writeString(out, CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+        String row = String.format(Locale.ROOT, "%s,%s,%d,%d,%d,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f%n",
+                LocalDateTime.now(), scenario, concurrency, duration.toSeconds(), poolSize,
+                result.count(), result.errors(), throughput,
+                result.percentileMs(50), result.percentileMs(95), result.percentileMs(99), result.percentileMs(100));
+        Files.writeString(out, row, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    private static List<Scenario> scenarios(String value) {
+        if (value.equalsIgnoreCase("all")) {
+            return List.of(Scenario.values());
+        }
+        return Arrays.stream(value.split(","))
+                .map(name -> Scenario.valueOf(name.trim().toUpperCase(Locale.ROOT)))
+                .toList();
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("option must be --key=value: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
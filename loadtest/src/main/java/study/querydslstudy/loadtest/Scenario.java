@@ -0,0 +1,98 @@
+package study.querydslstudy.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 부하 시나리오, 요청 하나를 만든다.
+ * 데이터는 InitMember 기준 (teamA/teamB 번갈아, age = i, username = member + i)
+ */
+enum Scenario {
+
+    /**
+     * 자주 쓰는 필터 검색 - 조건 조합이 몇개 안되므로 쿼리 플랜 캐시가 계속 hit
+     */
+    V1_SEARCH {
+        @Override
+        HttpRequest next(Target target) {
+            int ageGoe = ThreadLocalRandom.current().nextInt(10) * 10;
+            return get(target, "/v1/members?teamName=teamB&ageGoe=" + ageGoe + "&ageLoe=" + (ageGoe + 10));
+        }
+    },
+
+    /**
+     * 뒤쪽 페이지 - offset 이 커서 앞의 row 를 모두 읽고 버린다. (fetchResults 카운트 포함)
+     */
+    V2_DEEP_PAGING {
+        @Override
+        HttpRequest next(Target target) {
+            return get(target, "/v2/members?size=" + PAGE_SIZE + "&page=" + deepPage(target));
+        }
+    },
+
+    V3_DEEP_PAGING {
+        @Override
+        HttpRequest next(Target target) {
+            return get(target, "/v3/members?size=" + PAGE_SIZE + "&page=" + deepPage(target));
+        }
+    },
+
+    /**
+     * 첫 페이지 + 큰 카운트 - 결과가 한 페이지를 넘으므로 매번 count 쿼리가 나간다.
+     */
+    V3_COUNT {
+        @Override
+        HttpRequest next(Target target) {
+            return get(target, "/v3/o/members?teamName=teamA&size=" + PAGE_SIZE + "&page=0");
+        }
+    },
+
+    /**
+     * 읽기 80% (V1_SEARCH) + 쓰기 20% (PATCH /members/{id})
+     */
+    MIXED {
+        @Override
+        HttpRequest next(Target target) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextInt(100) >= 20) {
+                return V1_SEARCH.next(target);
+            }
+            long memberId = target.memberIds()[random.nextInt(target.memberIds().length)];
+            return HttpRequest.newBuilder(target.uri("/members/" + memberId))
+                    .timeout(REQUEST_TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .method("PATCH", HttpRequest.BodyPublishers.ofString("{\"age\":" + random.nextInt(100) + "}"))
+                    .build();
+        }
+    };
+
+    static final int PAGE_SIZE = 20;
+    static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    abstract HttpRequest next(Target target);
+
+    private static HttpRequest get(Target target, String path) {
+        return HttpRequest.newBuilder(target.uri(path))
+                .timeout(REQUEST_TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    // 전체 페이지의 뒤쪽 절반 중 하나
+    private static long deepPage(Target target) {
+        long pages = Math.max(1, target.totalMembers() / PAGE_SIZE);
+        return pages / 2 + ThreadLocalRandom.current().nextLong(Math.max(1, pages - pages / 2));
+    }
+
+    /**
+     * 부하 대상 서버와 미리 조회해둔 데이터 정보
+     */
+    record Target(String baseUrl, long totalMembers, long[] memberIds) {
+
+        URI uri(String path) {
+            return URI.create(baseUrl + path);
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package study.querydslstudy;
 
-import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication
 public class QuerydslStudyApplication {
@@ -13,9 +10,5 @@ public class QuerydslStudyApplication {
 		SpringApplication.run(QuerydslStudyApplication.class, args);
 	}
 
-	@Bean
-	JPAQueryFactory jpaQueryFactory(EntityManager em) {
-		return new JPAQueryFactory(em);
-	}
-	// JPAQueryFactory를 쓸때 이렇게 Bean을 주입하면 생성자를 줄여쓸수있다.
+	// JPAQueryFactory Bean 은 config.QuerydslConfig 에서 등록한다. (주입받아서 생성자를 줄여쓸수있다.)
 }
@@ -0,0 +1,76 @@
+package study.querydslstudy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 커넥션 풀에서 커넥션을 얻는데 걸린 시간을 리포지토리 메서드별로 기록한다.
+ * (repository.connection.acquire{method=...})
+ * 풀 전체의 active/idle/pending, acquire 히스토그램은 actuator 가 hikaricp.connections.* 로 노출한다.
+ * DelegatingDataSource 로 감싸므로 actuator 의 Hikari 지표와 unwrap(HikariDataSource.class)은 그대로 동작한다.
+ */
+@Component
+public class ConnectionAcquireMetrics implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> registry; // BeanPostProcessor 라서 늦게 꺼낸다.
+
+    public ConnectionAcquireMetrics(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TimedDataSource)) {
+            return new TimedDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    private class TimedDataSource extends DelegatingDataSource {
+
+        TimedDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.getConnection();
+            } finally {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.getConnection(username, password);
+            } finally {
+                record(System.nanoTime() - start);
+            }
+        }
+
+        private void record(long nanos) {
+            MeterRegistry meterRegistry = registry.getIfAvailable();
+            if (meterRegistry == null) {
+                return;
+            }
+            Timer.builder("repository.connection.acquire")
+                    .tag("method", RepositoryMetricsAspect.currentMethod())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydslstudy.config;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * 관측한 동시성으로 커넥션 풀 크기를 조절한다. (app.pool.auto-size.enabled=true 일때만 등록)
+ * - 커넥션을 기다리는 스레드(pending)가 grow-after 번 연속 보이면 step 만큼 늘린다. (max-size 까지)
+ * - 사용중(active) 최대값이 풀의 절반 이하인 상태가 shrink-after 번 연속이면 step 만큼 줄인다. (min-size 까지)
+ * 줄일때 idle 커넥션은 Hikari 가 idle-timeout 에 맞춰 정리한다.
+ * DB가 느려서 pending 이 생기는 경우에도 풀이 커지므로 max-size 는 DB가 받을수 있는 커넥션 수 이하로 둔다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.pool.auto-size.enabled", havingValue = "true")
+public class PoolAutoSizer {
+
+    private final HikariDataSource dataSource;
+    private final int minSize;
+    private final int maxSize;
+    private final int step;
+    private final int growAfter;
+    private final int shrinkAfter;
+
+    private int busySamples;
+    private int idleSamples;
+    private int peakActive;
+
+    @Autowired // 생성자가 둘이라 스프링이 쓸 생성자를 지정한다.
+    public PoolAutoSizer(DataSource dataSource,
+                         @Value("${app.pool.auto-size.min-size:5}") int minSize,
+                         @Value("${app.pool.auto-size.max-size:30}") int maxSize,
+                         @Value("${app.pool.auto-size.step:2}") int step,
+                         @Value("${app.pool.auto-size.grow-after:3}") int growAfter,
+                         @Value("${app.pool.auto-size.shrink-after:30}") int shrinkAfter) throws SQLException {
+        this(dataSource.unwrap(HikariDataSource.class), minSize, maxSize, step, growAfter, shrinkAfter);
+    }
+
+    // 테스트에서 풀 MXBean 을 바꿔 끼운 HikariDataSource 를 넘긴다.
+    PoolAutoSizer(HikariDataSource dataSource, int minSize, int maxSize, int step, int growAfter, int shrinkAfter) {
+        if (minSize <= 0 || maxSize < minSize || step <= 0) {
+            throw new IllegalArgumentException("invalid pool auto-size range. min=" + minSize
+                    + ", max=" + maxSize + ", step=" + step);
+        }
+        this.dataSource = dataSource;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.step = step;
+        this.growAfter = growAfter;
+        this.shrinkAfter = shrinkAfter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.pool.auto-size.interval-ms:1000}")
+    public void sample() {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return; // 아직 첫 커넥션을 만들기 전
+        }
+        HikariConfigMXBean config = dataSource.getHikariConfigMXBean();
+        int size = config.getMaximumPoolSize();
+        int active = pool.getActiveConnections();
+        peakActive = Math.max(peakActive, active);
+
+        if (pool.getThreadsAwaitingConnection() > 0) {
+            idleSamples = 0;
+            peakActive = 0;
+            if (++busySamples >= growAfter && size < maxSize) {
+                resize(config, Math.min(size + step, maxSize));
+                busySamples = 0;
+            }
+            return;
+        }
+
+        busySamples = 0;
+        if (active * 2 <= size) {
+            if (++idleSamples >= shrinkAfter && size > minSize) {
+                // 관측 구간의 최대 사용량 보다는 남겨둔다.
+                resize(config, Math.max(Math.max(size - step, minSize), peakActive + 1));
+                idleSamples = 0;
+                peakActive = 0;
+            }
+        } else {
+            idleSamples = 0;
+            peakActive = 0;
+        }
+    }
+
+    private void resize(HikariConfigMXBean config, int newSize) {
+        int oldSize = config.getMaximumPoolSize();
+        if (newSize == oldSize) {
+            return;
+        }
+        if (config.getMinimumIdle() > newSize) {
+            config.setMinimumIdle(newSize);
+        }
+        config.setMaximumPoolSize(newSize);
+        log.info("connection pool resized. {} -> {}", oldSize, newSize);
+    }
+}
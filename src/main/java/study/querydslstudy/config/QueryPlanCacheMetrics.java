@@ -0,0 +1,51 @@
+package study.querydslstudy.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.spi.QueryInterpretationCache;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate 쿼리 플랜 캐시(HQL 해석 캐시)를 Micrometer 지표로 노출한다.
+ * usernameEq/teamNameEq/ageGoe/ageLoe 조합마다 다른 JPQL이 만들어지므로 캐시가 모자라면 매번 파싱하게 된다.
+ * hit/miss는 hibernate.generate_statistics=true 일때만 집계된다.
+ * Hibernate는 eviction 횟수를 따로 세지 않는다. size가 max에 붙어있고 miss가 계속 늘면 캐시를 키운다.
+ */
+@Component
+public class QueryPlanCacheMetrics implements MeterBinder {
+
+    private final Statistics statistics;
+    private final QueryInterpretationCache interpretationCache;
+
+    public QueryPlanCacheMetrics(EntityManagerFactory emf) {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        this.statistics = sessionFactory.getStatistics();
+        this.interpretationCache = sessionFactory.getQueryEngine().getInterpretationCache();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("hibernate.query.plan.cache.requests", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("hibernate.query.plan.cache.requests", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("hibernate.query.plan.cache.hit.ratio", this, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+        Gauge.builder("hibernate.query.plan.cache.size", interpretationCache,
+                        QueryInterpretationCache::getNumberOfCachedHqlInterpretations)
+                .register(registry);
+    }
+
+    public double hitRatio() {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
@@ -0,0 +1,116 @@
+package study.querydslstudy.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.controller.InitMember;
+import study.querydslstudy.controller.MemberSeededEvent;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.repository.MemberJpaRepository;
+import study.querydslstudy.repository.MemberRepository;
+import study.querydslstudy.repository.MemberTestRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 배포 직후 첫 요청이 HQL 파싱, 쿼리 플랜 캐시, JIT, 커넥션 풀 채우기 비용을 떠안지 않도록
+ * 쿼리 모양별로 한번씩 미리 실행한다.
+ * - 결과 크기가 정해진 호출만 한다. (첫 페이지, searchAfter) 전체 목록 조회나 export 는 테이블 전체를 읽으므로 하지 않는다.
+ * - InitMember 가 있으면 데이터를 다 넣은 뒤(MemberSeededEvent), 없으면 ApplicationReadyEvent 시점에 실행한다.
+ *   빈 테이블에 돌리거나 seeding 과 경쟁하면 warm-up 이 되지 않는다.
+ * 스프링 부트는 ApplicationReadyEvent 리스너가 끝난 다음에 ReadinessState.ACCEPTING_TRAFFIC 을 발행하므로
+ * 동기로 실행되면 warm-up이 끝날때까지 readiness probe는 ready가 아니다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.warmup.enabled", havingValue = "true")
+public class QueryWarmup {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final MemberTestRepository memberTestRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectProvider<InitMember> initMember;
+
+    @Value("${app.warmup.iterations:3}")
+    private int iterations;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (initMember.getIfAvailable() == null) {
+            warmup();
+        }
+    }
+
+    @EventListener(MemberSeededEvent.class)
+    public void onSeeded() {
+        warmup();
+    }
+
+    void warmup() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < iterations; i++) {
+            for (MemberSearchCondition condition : conditions()) {
+                try {
+                    tx.executeWithoutResult(status -> runAll(condition, PageRequest.of(0, 10)));
+                } catch (RuntimeException e) {
+                    // warm-up 실패로 기동을 막지는 않는다. 실제 요청에서 같은 오류가 다시 난다.
+                    log.warn("query warm-up failed. condition={}", condition, e);
+                }
+            }
+        }
+        log.info("query warm-up finished. iterations={}, {}ms", iterations, System.currentTimeMillis() - start);
+    }
+
+    private void runAll(MemberSearchCondition condition, Pageable pageable) {
+        memberJpaRepository.findAllByIds(List.of(1L, 2L));
+
+        memberRepository.searchPageSimple(condition, pageable);
+        memberRepository.searchPageComplex(condition, pageable);
+        memberRepository.searchPageComplexOptimize(condition, pageable);
+
+        memberRepository.searchAfter(condition, null, pageable.getPageSize());
+        memberRepository.searchAfter(condition, 0L, pageable.getPageSize());
+
+        memberTestRepository.searchPageByApplyPage(condition, pageable);
+        memberTestRepository.applyPagination(condition, pageable);
+        memberTestRepository.applyPagination2(condition, pageable);
+    }
+
+    /**
+     * MemberSearchCondition 으로 만들어지는 JPQL 모양 전부
+     * 문자열 조건 4개(username, usernameStartsWith, usernameContains, teamName)의 있음/없음 조합 x
+     * 나이 조건 5가지(없음, goe, loe, between, eq) => 80가지
+     */
+    static List<MemberSearchCondition> conditions() {
+        List<MemberSearchCondition> conditions = new ArrayList<>();
+        Integer[][] ages = {{null, null}, {10, null}, {null, 40}, {10, 40}, {20, 20}};
+        for (int mask = 0; mask < 16; mask++) {
+            for (Integer[] age : ages) {
+                MemberSearchCondition condition = new MemberSearchCondition();
+                condition.setUsername((mask & 1) != 0 ? "member1" : null);
+                condition.setUsernameStartsWith((mask & 2) != 0 ? "member" : null);
+                condition.setUsernameContains((mask & 4) != 0 ? "ember" : null);
+                condition.setTeamName((mask & 8) != 0 ? "teamA" : null);
+                condition.setAgeGoe(age[0]);
+                condition.setAgeLoe(age[1]);
+                conditions.add(condition);
+            }
+        }
+        return conditions;
+    }
+}
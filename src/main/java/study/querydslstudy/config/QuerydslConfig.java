@@ -0,0 +1,26 @@
+package study.querydslstudy.config;
+
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.querydslstudy.repository.support.DeadlineJPAQueryFactory;
+
+@Configuration
+public class QuerydslConfig {
+
+    /**
+     * new JPAQueryFactory(em) 는 쿼리를 만들때마다 JPAProvider로 EntityManager 구현체를 보고 템플릿을 고른다.
+     * 템플릿을 한번 정해두고 모든 리포지토리가 이 팩토리 하나를 주입받아 같은 JPQL을 만든다.
+     * Hibernate 6 에서는 HQLTemplates 대신 JPQLTemplates 를 써야 transform(groupBy) 이 동작한다.
+     */
+    public static final JPQLTemplates TEMPLATES = JPQLTemplates.DEFAULT;
+
+    // EntityManager는 트랜잭션마다 실제 EntityManager로 위임하는 프록시라 싱글톤으로 공유해도 된다.
+    // HTTP 요청 안에서 만든 쿼리는 요청의 남은 시간을 timeout 으로 받는다. (RequestDeadlineFilter)
+    @Bean
+    public JPAQueryFactory jpaQueryFactory(EntityManager em) {
+        return new DeadlineJPAQueryFactory(TEMPLATES, em);
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydslstudy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 리포지토리 메서드별 실행시간 (repository.invocation{method=MemberJpaRepository.search})
+ * 실행중인 메서드 이름을 스레드에 남겨서 커넥션 획득시간도 메서드별로 나눈다. (ConnectionAcquireMetrics)
+ * @Transactional 보다 바깥에서 돌아야 트랜잭션 시작(커넥션 획득)이 이 메서드 안에 잡힌다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RepositoryMetricsAspect {
+
+    private static final ThreadLocal<String> CURRENT_METHOD = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * @return 실행중인 가장 바깥 리포지토리 메서드, 리포지토리 밖이면 none
+     */
+    public static String currentMethod() {
+        String method = CURRENT_METHOD.get();
+        return method != null ? method : "none";
+    }
+
+    /**
+     * 커스텀 구현(MemberRepositoryImpl)은 스프링 데이터 리포지토리(MemberRepository)를 거쳐서 불리므로 빼야 한번만 잰다.
+     */
+    @Around("execution(public * study.querydslstudy.repository.*Repository*.*(..))"
+            + " && !within(study.querydslstudy.repository.*Impl)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        String outer = CURRENT_METHOD.get();
+        if (outer == null) {
+            CURRENT_METHOD.set(method);
+        }
+
+        Timer.Sample sample = Timer.start(registry);
+        String outcome = "success";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            outcome = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("repository.invocation")
+                    .tag("method", method)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            if (outer == null) {
+                CURRENT_METHOD.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package study.querydslstudy.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import study.querydslstudy.repository.support.RequestDeadline;
+
+import java.io.IOException;
+
+/**
+ * 요청마다 마감 시각을 정한다.
+ * X-Request-Timeout-Ms 헤더가 있으면 그 값(최대 app.request.max-timeout-ms), 없으면 app.request.timeout-ms
+ * 이 요청에서 나가는 Querydsl 쿼리는 남은 시간을 timeout 으로 받는다. (DeadlineJPAQueryFactory)
+ */
+@Component
+public class RequestDeadlineFilter extends OncePerRequestFilter {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout-Ms";
+
+    private final long defaultTimeoutMs;
+    private final long maxTimeoutMs;
+
+    public RequestDeadlineFilter(@Value("${app.request.timeout-ms:5000}") long defaultTimeoutMs,
+                                 @Value("${app.request.max-timeout-ms:30000}") long maxTimeoutMs) {
+        this.defaultTimeoutMs = defaultTimeoutMs;
+        this.maxTimeoutMs = maxTimeoutMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long timeoutMs = timeoutMs(request.getHeader(TIMEOUT_HEADER));
+        if (timeoutMs <= 0) {
+            filterChain.doFilter(request, response); // 마감 없음
+            return;
+        }
+
+        RequestDeadline.start(timeoutMs);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RequestDeadline.clear(); // 스레드풀 재사용시 다음 요청에 남지 않도록
+        }
+    }
+
+    long timeoutMs(String header) {
+        if (header == null || header.isBlank()) {
+            return defaultTimeoutMs;
+        }
+        try {
+            long requested = Long.parseLong(header.trim());
+            return requested > 0 ? Math.min(requested, maxTimeoutMs) : defaultTimeoutMs;
+        } catch (NumberFormatException e) {
+            return defaultTimeoutMs;
+        }
+    }
+}
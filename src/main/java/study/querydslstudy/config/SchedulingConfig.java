@@ -0,0 +1,13 @@
+package study.querydslstudy.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * @Scheduled 메서드 실행을 켠다.
+ * 스케줄 작업을 가진 빈(PoolAutoSizer)은 조건부로 등록되므로 그 빈에 붙이지 않고 여기서 한번만 켠다.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,25 @@
+package study.querydslstudy.config;
+
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+@Configuration
+public class WebConfig {
+
+    /**
+     * Accept: application/x-jackson-smile 이면 JSON 대신 Smile(바이너리 JSON)로 응답한다.
+     * 필드명은 처음 한번만 쓰고, teamName 처럼 반복되는 문자열 값도 앞에 나온 값을 참조(사전 인코딩)하도록 켠다.
+     * 스프링 부트 ObjectMapper 설정(모듈, 날짜 포맷 등)은 그대로 따라간다.
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        SmileFactory smileFactory = SmileFactory.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .build();
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(smileFactory).build());
+    }
+}
@@ -1,44 +1,223 @@
 package study.querydslstudy.controller;
 
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import jakarta.persistence.PersistenceUnit;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydslstudy.entity.Member;
 import study.querydslstudy.entity.Team;
+import study.querydslstudy.repository.TeamStatsEventListener;
+import study.querydslstudy.repository.TeamStatsUpdater;
 
-@Profile("local")
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 샘플 데이터 (app.init.* - InitMemberProperties)
+ * 기동이 끝난 뒤(ApplicationReadyEvent) 넣는다. async=true 면 백그라운드 스레드에서 넣으므로 기동을 막지 않는다.
+ * 다 넣으면 MemberSeededEvent 를 발행한다.
+ */
+@Slf4j
+@Profile({"local", "loadtest", "perf"})
 @Component
 @RequiredArgsConstructor
+@EnableConfigurationProperties(InitMemberProperties.class)
 public class InitMember {
 
     private final InitMemberService initMemberService;
+    private final InitMemberProperties properties;
 
-    @PostConstruct
+    @EventListener(ApplicationReadyEvent.class)
     public void init(){
-        initMemberService.init();
+        if (!properties.isAsync()) {
+            initMemberService.init();
+            return;
+        }
+        Thread seeder = new Thread(() -> {
+            try {
+                initMemberService.init();
+            } catch (RuntimeException e) {
+                log.error("member seeding failed", e);
+            }
+        }, "init-member");
+        seeder.setDaemon(true);
+        seeder.start();
     }
 
+    /**
+     * 팀을 먼저 넣고, 회원은 batch-size 단위로 나눠서 threads 개의 스레드가 각자 트랜잭션으로 넣는다.
+     * 배치마다 트랜잭션이 끝나므로 영속성 컨텍스트가 회원수만큼 커지지 않는다.
+     * 값은 회원 번호(i)와 배치별 seed 로만 정해지므로 어느 스레드가 넣든 같은 데이터가 된다.
+     * 회원 insert 는 TeamStats 를 건드리지 않고(runWithoutStats) 다 넣은 뒤 refreshAll() 로 한번에 집계한다.
+     */
+    @Slf4j
+    @Profile({"local", "loadtest", "perf"})
     @Component
     static class InitMemberService{
-        @PersistenceContext
-        private EntityManager em;
+        private final EntityManager em;
+        private final InitMemberProperties properties;
+        private final TransactionTemplate tx;
+        private final TeamStatsUpdater teamStatsUpdater;
+        private final ApplicationEventPublisher eventPublisher;
+
+        InitMemberService(EntityManager em, InitMemberProperties properties, PlatformTransactionManager transactionManager,
+                          TeamStatsUpdater teamStatsUpdater, ApplicationEventPublisher eventPublisher) {
+            this.em = em;
+            this.properties = properties;
+            this.tx = new TransactionTemplate(transactionManager);
+            this.teamStatsUpdater = teamStatsUpdater;
+            this.eventPublisher = eventPublisher;
+        }
 
-        @Transactional //스프링 라이프사이클상 @PostConstruct와 @Transcational로 로직을 분리해줘야한다.
         public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
+            if (properties.getTeams() <= 0 || properties.getBatchSize() <= 0 || properties.getMembers() < 0) {
+                throw new IllegalArgumentException("invalid app.init. teams=" + properties.getTeams()
+                        + ", batchSize=" + properties.getBatchSize() + ", members=" + properties.getMembers());
+            }
+            long start = System.nanoTime();
+            Long[] teamIds = tx.execute(status -> persistTeams()); // 팀 insert 는 통계 행을 만든다.
+            double[] teamWeights = teamWeights(properties.getTeams(), properties.getTeamSkew());
+
+            int members = properties.getMembers();
+            int batchSize = properties.getBatchSize();
+            int threads = Math.max(1, Math.min(properties.getThreads(), (members + batchSize - 1) / batchSize));
+            AtomicInteger nextBatch = new AtomicInteger();
+            AtomicLong inserted = new AtomicLong();
+
+            ExecutorService producers = Executors.newFixedThreadPool(threads, r -> new Thread(r, "init-member-producer"));
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    futures.add(producers.submit(() -> {
+                        int from;
+                        while ((from = nextBatch.getAndIncrement() * batchSize) < members) {
+                            int to = Math.min(from + batchSize, members);
+                            int batchFrom = from;
+                            TeamStatsEventListener.runWithoutStats(() -> tx.executeWithoutResult(
+                                    status -> persistMembers(batchFrom, to, teamIds, teamWeights)));
+                            logProgress(inserted.addAndGet(to - from), members);
+                        }
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("member seeding interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("member seeding failed", e.getCause());
+            } finally {
+                producers.shutdownNow();
+            }
+
+            teamStatsUpdater.refreshAll();
+            long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+            log.info("member seeding finished. members={}, teams={}, threads={}, elapsed={}ms ({} members/s)",
+                    members, teamIds.length, threads, elapsedMs, elapsedMs == 0 ? members : members * 1000L / elapsedMs);
+            eventPublisher.publishEvent(new MemberSeededEvent(members, teamIds.length));
+        }
+
+        private Long[] persistTeams() {
+            Long[] teamIds = new Long[properties.getTeams()];
+            for (int j = 0; j < teamIds.length; j++) {
+                Team team = new Team(teamName(j));
+                em.persist(team);
+                teamIds[j] = team.getId();
+            }
+            return teamIds;
+        }
+
+        private void persistMembers(int from, int to, Long[] teamIds, double[] teamWeights) {
+            SplittableRandom random = new SplittableRandom(properties.getSeed() * 31 + from);
+            for (int i = from; i < to; i++) {
+                int teamIndex = teamIndex(i, teamIds.length, teamWeights, random);
+                // 팀을 조회하지 않고(프록시) 팀의 members 컬렉션도 건드리지 않는다. => 스레드끼리 팀 행을 두고 다투지 않는다.
+                Member member = new Member(username(i), age(i, random));
+                member.setTeam(em.getReference(Team.class, teamIds[teamIndex]));
+                em.persist(member);
+            }
+        }
 
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
+        private void logProgress(long inserted, int members) {
+            long step = Math.max(properties.getBatchSize(), members / 10);
+            if (inserted % step < properties.getBatchSize() && inserted < members) {
+                log.info("member seeding... {}/{}", inserted, members);
+            }
+        }
+
+        // teamA, teamB ... teamZ, team26, team27 ...
+        static String teamName(int j) {
+            return j < 26 ? "team" + (char) ('A' + j) : "team" + j;
+        }
+
+        static String username(long i, int cardinality) {
+            return "member" + (cardinality > 0 ? i % cardinality : i);
+        }
+
+        private String username(int i) {
+            return username(i, properties.getUsernameCardinality());
+        }
+
+        private int age(int i, SplittableRandom random) {
+            int min = properties.getAgeMin();
+            int max = properties.getAgeMax();
+            return switch (properties.getAgeDistribution()) {
+                case SEQUENTIAL -> i;
+                case UNIFORM -> random.nextInt(min, max + 1);
+                case NORMAL -> {
+                    // Box-Muller
+                    double gaussian = Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+                    long age = Math.round(properties.getAgeMean() + gaussian * properties.getAgeStddev());
+                    yield (int) Math.max(min, Math.min(max, age));
+                }
+            };
+        }
+
+        /**
+         * skew 0 이면 번갈아 배정 (원래 데이터: 짝수 teamA, 홀수 teamB)
+         */
+        static int teamIndex(int i, int teams, double[] cumulativeWeights, SplittableRandom random) {
+            if (cumulativeWeights == null) {
+                return i % teams;
+            }
+            int index = Arrays.binarySearch(cumulativeWeights, random.nextDouble());
+            return Math.min(index >= 0 ? index : -index - 1, cumulativeWeights.length - 1);
+        }
+
+        /**
+         * @return Zipf(skew) 누적 확률, skew 0 이면 null (번갈아 배정)
+         */
+        static double[] teamWeights(int teams, double skew) {
+            if (skew <= 0) {
+                return null;
+            }
+            double[] cumulative = new double[teams];
+            double sum = 0;
+            for (int k = 0; k < teams; k++) {
+                sum += 1 / Math.pow(k + 1, skew);
+                cumulative[k] = sum;
+            }
+            for (int k = 0; k < teams; k++) {
+                cumulative[k] /= sum;
             }
+            return cumulative;
         }
     }
 }
@@ -0,0 +1,44 @@
+package study.querydslstudy.controller;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * InitMember 샘플 데이터 설정 (app.init.*)
+ * 기본값은 원래 데이터와 같다. teamA/teamB 번갈아, age = i, username = member + i, 100명
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "app.init")
+public class InitMemberProperties {
+
+    public enum AgeDistribution {SEQUENTIAL, UNIFORM, NORMAL}
+
+    private int members = 100;
+    private int teams = 2;
+    /**
+     * 팀 크기 쏠림 (Zipf 지수). 0 이면 팀을 번갈아 배정해서 크기가 같다. 1 이면 첫 팀이 두번째 팀의 2배, 세번째 팀의 3배...
+     */
+    private double teamSkew = 0;
+
+    /**
+     * SEQUENTIAL : age = i / UNIFORM : age-min ~ age-max 균등 / NORMAL : age-mean, age-stddev 정규분포 (age-min ~ age-max 로 자름)
+     */
+    private AgeDistribution ageDistribution = AgeDistribution.SEQUENTIAL;
+    private int ageMin = 0;
+    private int ageMax = 100;
+    private double ageMean = 40;
+    private double ageStddev = 12;
+
+    /**
+     * 서로 다른 username 개수. 0 이면 모두 다르다. (member0 ~ member(members-1))
+     * 작게 주면 username 조건 한번에 여러명이 걸린다.
+     */
+    private int usernameCardinality = 0;
+
+    private int threads = 1; // insert 하는 스레드 수
+    private int batchSize = 1000; // 트랜잭션 하나에 넣을 회원수 (hibernate.jdbc.batch_size 의 배수)
+    private boolean async = true; // 기동을 막지 않고 ApplicationReadyEvent 이후 백그라운드로 넣는다.
+    private long seed = 42; // 같은 seed 면 스레드 수와 상관없이 같은 값이 나온다.
+}
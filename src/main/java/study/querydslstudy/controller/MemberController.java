@@ -1,41 +1,133 @@
 package study.querydslstudy.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.server.ResponseStatusException;
 import study.querydslstudy.dto.MemberSearchCondition;
 import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.dto.MemberUpdateDto;
+import study.querydslstudy.dto.PagedResponse;
+import study.querydslstudy.repository.DataVersion;
 import study.querydslstudy.repository.MemberJpaRepository;
 import study.querydslstudy.repository.MemberRepository;
+import study.querydslstudy.repository.MemberWriteBehindQueue;
+import study.querydslstudy.repository.support.OptimisticLockRetry;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    static final int MAX_BATCH_IDS = 1000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    private final DataVersion dataVersion;
+    private final OptimisticLockRetry optimisticLockRetry;
+    private final ObjectProvider<MemberWriteBehindQueue> writeBehindQueue; // app.write-behind.enabled=true 일때만 존재
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
+    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition, ServletWebRequest request) {
+        if (notModified(request, condition.normalize())) {
+            return null; // 304
+        }
         return memberJpaRepository.search(condition);
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageSimple(condition, pageable);
+    public PagedResponse<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request) {
+        if (notModified(request, condition.normalize(), pageable)) {
+            return null;
+        }
+        return PagedResponse.of(memberRepository.searchPageSimple(condition, pageable));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public PagedResponse<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request) {
+        if (notModified(request, condition.normalize(), pageable)) {
+            return null;
+        }
+        return PagedResponse.of(memberRepository.searchPageComplex(condition, pageable));
     }
 
     @GetMapping("/v3/o/members")
-    public Page<MemberTeamDto> searchMemberV3Optimize(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplexOptimize(condition, pageable);
+    public PagedResponse<MemberTeamDto> searchMemberV3Optimize(MemberSearchCondition condition, Pageable pageable, ServletWebRequest request) {
+        if (notModified(request, condition.normalize(), pageable)) {
+            return null;
+        }
+        return PagedResponse.of(memberRepository.searchPageComplexOptimize(condition, pageable));
+    }
+
+    /**
+     * 한 요청으로 읽을수 있는 id는 MAX_BATCH_IDS 개까지, 넘으면 400
+     */
+    @PostMapping("/members/batch")
+    public Map<Long, MemberTeamDto> findMembers(@RequestBody List<Long> memberIds) {
+        if (memberIds.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "too many member ids: " + memberIds.size() + " (max " + MAX_BATCH_IDS + ")");
+        }
+        return memberJpaRepository.findAllByIds(memberIds);
+    }
+
+    /**
+     * write-behind 가 켜져 있으면 큐에 넣고 바로 202, 아니면 바로 update 하고 204 (버전 충돌시 재시도)
+     */
+    @PatchMapping("/members/{memberId}")
+    public ResponseEntity<Void> updateMember(@PathVariable Long memberId, @RequestBody MemberUpdateDto update)
+            throws InterruptedException {
+        MemberWriteBehindQueue queue = writeBehindQueue.getIfAvailable();
+        if (queue != null) {
+            try {
+                queue.submit(memberId, update);
+            } catch (RejectedExecutionException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+            }
+            return ResponseEntity.accepted().build();
+        }
+
+        return optimisticLockRetry.execute(() -> memberJpaRepository.update(memberId, update)).isPresent()
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * 요청 마감(X-Request-Timeout-Ms, app.request.timeout-ms)이 지나서 쿼리가 끊겼을때
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Void> queryTimeout() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
+    /**
+     * ETag = 데이터 버전 + 검색조건(페이지 포함) + Accept 해시
+     * 클라이언트가 보낸 If-None-Match 와 같으면 304 응답을 세팅하고 true
+     * Last-Modified 는 주지 않는다. 초 단위라서 같은 초 안에 커밋된 변경을 놓친다.
+     * 같은 조건이라도 JSON 과 Smile 은 다른 응답이므로 Accept 를 ETag 에 넣고 Vary: Accept 를 붙인다.
+     */
+    private boolean notModified(ServletWebRequest request, Object... keys) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        String etag = "\"" + dataVersion.getVersion() + "-"
+                + Integer.toHexString(31 * Arrays.hashCode(keys) + Objects.hashCode(accept)) + "\"";
+        request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return request.checkNotModified(etag);
     }
 }
@@ -0,0 +1,8 @@
+package study.querydslstudy.controller;
+
+/**
+ * InitMember 샘플 데이터를 다 넣은 뒤 발행한다. (async 면 seeding 스레드에서)
+ * 데이터가 있어야 의미가 있는 작업(QueryWarmup)은 ApplicationReadyEvent 대신 이 이벤트를 기다린다.
+ */
+public record MemberSeededEvent(int members, int teams) {
+}
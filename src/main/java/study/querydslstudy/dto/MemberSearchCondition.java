@@ -2,13 +2,42 @@ package study.querydslstudy.dto;
 
 import lombok.Data;
 
-import java.util.List;
+import static org.springframework.util.StringUtils.hasText;
 
 @Data
 public class MemberSearchCondition{
     //회원명, 팀명, 나이(ageGoe, ageLoe)
     private String username;
+    private String usernameStartsWith; // 접두어 검색 (username 인덱스 사용)
+    private String usernameContains; // 부분 검색 (3-gram 색인 MemberUsernameGram 으로 후보 id 를 먼저 찾는다)
     private String teamName;
     private Integer ageGoe;
     private Integer ageLoe;
+
+    /**
+     * 같은 뜻의 조건이 같은 모양이 되도록 정리한 사본
+     * 문자열은 앞뒤 공백을 자르고, 빈 문자열은 null(조건 없음)로 바꾼다.
+     * => 같은 조건이면 같은 JPQL, 같은 캐시 키(ETag)가 나온다.
+     */
+    public MemberSearchCondition normalize() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.username = trimToNull(username);
+        normalized.usernameStartsWith = trimToNull(usernameStartsWith);
+        normalized.usernameContains = trimToNull(usernameContains);
+        normalized.teamName = trimToNull(teamName);
+        normalized.ageGoe = ageGoe;
+        normalized.ageLoe = ageLoe;
+        return normalized;
+    }
+
+    /**
+     * ageGoe > ageLoe 처럼 만족하는 회원이 있을 수 없는 조건 => DB에 가지 않고 빈 결과
+     */
+    public boolean isUnsatisfiable() {
+        return ageGoe != null && ageLoe != null && ageGoe > ageLoe;
+    }
+
+    private static String trimToNull(String value) {
+        return hasText(value) ? value.trim() : null;
+    }
 }
@@ -2,8 +2,10 @@ package study.querydslstudy.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor // export 버퍼 재사용용
 public class MemberTeamDto {
     private Long memberId;
     private String username;
@@ -0,0 +1,42 @@
+package study.querydslstudy.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * MemberTeamDto 전용 직렬화기
+ * BeanSerializer 는 프로퍼티마다 리플렉션으로 getter 를 찾아 호출하는데, 여기서는 필드를 직접 쓴다.
+ * @JsonComponent 라서 스프링 부트 ObjectMapper(JSON, Smile 모두)에 등록된다.
+ * 주의! MemberTeamDto 에 필드를 추가하면 여기도 같이 추가해야 한다. (빠뜨리면 MemberTeamDtoSerializerTest.writesEveryDtoField 가 실패한다)
+ */
+@JsonComponent
+public class MemberTeamDtoSerializer extends StdSerializer<MemberTeamDto> {
+
+    public MemberTeamDtoSerializer() {
+        super(MemberTeamDto.class);
+    }
+
+    @Override
+    public void serialize(MemberTeamDto dto, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        writeLong(gen, "memberId", dto.getMemberId());
+        gen.writeStringField("username", dto.getUsername());
+        gen.writeNumberField("age", dto.getAge());
+        writeLong(gen, "teamId", dto.getTeamId());
+        gen.writeStringField("teamName", dto.getTeamName());
+        gen.writeEndObject();
+    }
+
+    private void writeLong(JsonGenerator gen, String name, Long value) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeNumber(value.longValue());
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.querydslstudy.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 회원 프로필 변경 요청, null 인 필드는 바꾸지 않는다.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MemberUpdateDto {
+    private String username;
+    private Integer age;
+
+    /**
+     * 같은 회원에 대한 변경 두개를 하나로 합친다. newer 값이 우선
+     */
+    public MemberUpdateDto merge(MemberUpdateDto newer) {
+        return new MemberUpdateDto(
+                newer.username != null ? newer.username : username,
+                newer.age != null ? newer.age : age);
+    }
+}
@@ -0,0 +1,31 @@
+package study.querydslstudy.dto;
+
+import lombok.Getter;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * API 페이징 응답
+ * PageImpl 을 그대로 내보내면 pageable, sort 등 파생 필드까지 매번 직렬화되고 스프링 데이터 버전에 따라 모양이 바뀐다.
+ * 클라이언트에 필요한 값만 고정된 모양으로 내보낸다.
+ */
+@Getter
+public class PagedResponse<T> {
+
+    private final List<T> content;
+    private final int page;
+    private final int size;
+    private final long totalElements;
+
+    public PagedResponse(List<T> content, int page, int size, long totalElements) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.totalElements = totalElements;
+    }
+
+    public static <T> PagedResponse<T> of(Page<T> page) {
+        return new PagedResponse<>(page.getContent(), page.getNumber(), page.getSize(), page.getTotalElements());
+    }
+}
@@ -5,13 +5,18 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
 @Getter
 @Setter
 public class Hello {
 
-    @Id @GeneratedValue
+    @Id
+    @GenericGenerator(name = "hello_seq_gen", type = BlockSequenceGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "hello_seq"))
+    @GeneratedValue(generator = "hello_seq_gen")
     private Long id;
 
 }
@@ -2,21 +2,40 @@ package study.querydslstudy.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 @Entity
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"}) // 주의! 여기에 team 넣으면 무한참조 일어남
+// 모양이 고정된 쿼리는 NamedQuery로 둔다. => 애플리케이션 로딩 시점에 파싱, 검증되고 매 호출마다 JPQL을 만들지 않는다.
+// 이름을 Member.findXxx 로 지으면 스프링 데이터 쿼리 메서드(findByUsername)가 메서드 이름 대신 이 NamedQuery를 쓰게 되므로 피한다.
+@NamedQueries({
+        @NamedQuery(name = "Member.selectAll", query = "select m from Member m"),
+        @NamedQuery(name = "Member.selectByUsername", query = "select m from Member m where m.username = :username")
+})
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"), // 접두어(like 'x%') 검색, 정렬용
+        @Index(name = "idx_member_age", columnList = "age") // 나이 범위 검색, 정렬용
+})
 public class Member {
 
     @Id
-    @GeneratedValue
+    @GenericGenerator(name = "member_seq_gen", type = BlockSequenceGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "member_seq"))
+    @GeneratedValue(generator = "member_seq_gen")
     @Column(name = "member_id")
     private Long id;
     private String username;
     private int age;
 
+    @Version // 낙관적 락, 동시에 수정하면 나중에 커밋하는 쪽이 OptimisticLockException
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY) // **One은 LAZY로 받아야 한다.
     @JoinColumn(name = "item_id") // 컬럼명
     private Team team;
@@ -37,7 +56,20 @@ public class Member {
         }
     }
 
+    public void changeProfile(String username, Integer age) {
+        if (username != null) {
+            this.username = username;
+        }
+        if (age != null) {
+            this.age = age;
+        }
+    }
+
     public void changeTeam(Team team) {
+        // 이전 팀 컬렉션은 이미 로딩된 경우에만 빼준다. (빼려고 컬렉션 전체를 읽지 않는다)
+        if (this.team != null && Hibernate.isInitialized(this.team.getMembers())) {
+            this.team.getMembers().remove(this);
+        }
         this.team = team;
         team.getMembers().add(this);
     }
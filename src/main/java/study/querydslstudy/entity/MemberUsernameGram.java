@@ -0,0 +1,74 @@
+package study.querydslstudy.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * username 부분 검색용 3-gram 색인 (회원 한명당 username 길이만큼의 행)
+ * like '%keyword%' 는 인덱스를 못타므로, keyword 의 3-gram 을 모두 가진 회원 id 를 이 테이블에서 먼저 찾고
+ * 그 후보 id 에 대해서만 username 을 다시 확인한다. (MemberPredicates.usernameContains)
+ * Member insert/update/delete 시 MemberUsernameGramListener 가 커밋 직전에 맞춘다.
+ * username 끝에 END 두개를 붙여서 자르므로 3글자보다 짧은 keyword 도 gram 접두어(like 'ab%')로 찾을수 있다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+@IdClass(MemberUsernameGram.Key.class)
+@Table(indexes = @Index(name = "idx_member_username_gram_member", columnList = "member_id")) // 회원 변경/삭제시 지우기용
+public class MemberUsernameGram {
+
+    public static final int GRAM = 3;
+    public static final char END = '\u0001';
+
+    @Id
+    @Column(length = GRAM)
+    private String gram; // PK (gram, memberId) 순서 => gram 으로 찾으면 PK 인덱스 범위 스캔
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+
+    public MemberUsernameGram(String gram, Long memberId) {
+        this.gram = gram;
+        this.memberId = memberId;
+    }
+
+    /**
+     * 색인할 gram, "kim" => "kim", "im·", "m··" (· = END)
+     */
+    public static Set<String> grams(String username) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (username == null || username.isEmpty()) {
+            return grams;
+        }
+        String padded = username + END + END;
+        for (int i = 0; i < username.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * 검색할 gram, keyword 가 3글자보다 짧으면 빈 Set (gram 접두어로 찾는다)
+     */
+    public static Set<String> keywordGrams(String keyword) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= keyword.length(); i++) {
+            grams.add(keyword.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    @Getter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private String gram;
+        private Long memberId;
+    }
+}
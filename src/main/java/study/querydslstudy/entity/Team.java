@@ -4,7 +4,11 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Version;
 import lombok.*;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -16,11 +20,19 @@ import java.util.List;
 @ToString(of = {"id", "name"}) // team 들어가면 순환참조 오류가 발생한다. 즉 연관관계는 건들지마라.
 public class Team {
 
-    @Id @GeneratedValue
+    @Id
+    @GenericGenerator(name = "team_seq_gen", type = BlockSequenceGenerator.class,
+            parameters = @Parameter(name = "sequence_name", value = "team_seq"))
+    @GeneratedValue(generator = "team_seq_gen")
     private Long id;
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private Long version;
+
     @OneToMany(mappedBy = "team")
+    @OptimisticLock(excluded = true) // 회원이 들어오고 나가도 팀 version 을 올리지 않는다. (팀 row 는 바뀌지 않음)
     private List<Member> members = new ArrayList<>();
 
     public Team(String name) {
@@ -0,0 +1,50 @@
+package study.querydslstudy.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.*;
+
+/**
+ * 팀별 나이 통계 (집계 테이블)
+ * 대시보드에서 매번 member 전체를 groupBy 하지 않도록 미리 계산해서 저장해둔다.
+ * Member/Team 변경시 TeamStatsEventListener 가 커밋 직전에 바뀐 팀의 증감분만 반영한다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    private Long teamId; // Team.id 를 그대로 쓴다.
+    private String teamName;
+    private long memberCount;
+    private long ageSum;
+    private Integer ageMin;
+    private Integer ageMax;
+
+    public TeamStats(Long teamId) {
+        this.teamId = teamId;
+    }
+
+    public void update(String teamName, long memberCount, long ageSum, Integer ageMin, Integer ageMax) {
+        this.teamName = teamName;
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public void changeTeamName(String teamName) {
+        this.teamName = teamName;
+    }
+
+    public void changeAgeRange(Integer ageMin, Integer ageMax) {
+        this.ageMin = ageMin;
+        this.ageMax = ageMax;
+    }
+
+    public double getAgeAvg() {
+        return memberCount == 0 ? 0 : (double) ageSum / memberCount;
+    }
+}
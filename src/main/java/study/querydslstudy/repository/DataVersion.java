@@ -0,0 +1,88 @@
+package study.querydslstudy.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member/Team 데이터 버전
+ * Member/Team 을 insert, update, delete 한 트랜잭션이 커밋되면 버전이 올라간다.
+ * 조회 API는 이 버전으로 ETag 를 만들어서 바뀐게 없으면 DB를 안 가고 304를 준다.
+ * 벌크 연산(execute())은 이벤트를 거치지 않으므로 끝나고 bump()를 직접 호출해야 한다.
+ * 주의! 버전은 이 JVM 메모리에만 있다. 서버가 여러대면 다른 서버에서 커밋된 변경을 모르므로
+ * 그대로 쓰면 안 되고, 버전을 DB나 공유 저장소에 두어야 한다. (단일 노드 전용)
+ */
+@Component
+@RequiredArgsConstructor
+public class DataVersion implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+
+    // 재시작해도 이전 ETag와 겹치지 않게 기동 시각에서 시작한다.
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    // 커밋후 처리를 이미 등록한 세션, 엔티티마다 등록하지 않고 트랜잭션당 한번만 올린다.
+    private final Set<SharedSessionContractImplementor> registered = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public void bump() {
+        version.incrementAndGet();
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        bumpAfterCommit(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        bumpAfterCommit(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        bumpAfterCommit(event.getSession(), event.getEntity());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // 커밋 전에 올리면 다른 요청이 커밋 전 데이터로 새 ETag를 캐시할 수 있다.
+    private void bumpAfterCommit(EventSource session, Object entity) {
+        if ((entity instanceof Member || entity instanceof Team) && registered.add(session)) {
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+                registered.remove(s);
+                if (success) {
+                    bump();
+                }
+            });
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package study.querydslstudy.repository;
 
 import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Session;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydslstudy.dto.MemberSearchCondition;
 import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.dto.MemberUpdateDto;
 import study.querydslstudy.dto.QMemberTeamDto;
 import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
 
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
-import static org.springframework.util.StringUtils.hasText;
+import static study.querydslstudy.repository.MemberPredicates.*;
 import static study.querydslstudy.entity.QMember.member;
 import static study.querydslstudy.entity.QTeam.team;
 
@@ -26,6 +34,8 @@ import static study.querydslstudy.entity.QTeam.team;
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    private static final int ID_BATCH_SIZE = 500;
+
     private final EntityManager em;
     private final JPAQueryFactory qf;
 
@@ -38,6 +48,63 @@ public class MemberJpaRepository {
         return Optional.ofNullable(findMember);
     }
 
+    //변경감지(dirty checking)로 update
+    @Transactional
+    public Optional<Member> update(Long id, MemberUpdateDto update) {
+        Optional<Member> findMember = findById(id);
+        findMember.ifPresent(m -> m.changeProfile(update.getUsername(), update.getAge()));
+        return findMember;
+    }
+
+    /**
+     * 회원 version 이 올라가므로 동시에 같은 회원을 수정하면 나중에 커밋하는 쪽이 OptimisticLockingFailureException 이다.
+     * 여기서는 재시도하지 않는다. 필요하면 트랜잭션 밖에서 OptimisticLockRetry 로 감싸서 부른다. (MemberController.update 처럼)
+     * @throws EntityNotFoundException 회원이나 팀이 없을때 (@Repository 예외 변환으로 JpaObjectRetrievalFailureException 이 된다)
+     */
+    @Transactional
+    public void changeTeam(Long memberId, Long teamId) {
+        Member findMember = em.find(Member.class, memberId);
+        if (findMember == null) {
+            throw new EntityNotFoundException("member not found. id=" + memberId);
+        }
+        findMember.changeTeam(em.getReference(Team.class, teamId));
+    }
+
+    /**
+     * id 목록으로 한번에 조회 (findById를 id마다 부르지 않는다)
+     * 영속성 컨텍스트, 2차 캐시에 있는 회원은 DB에 가지 않고 나머지만 ID_BATCH_SIZE 단위 IN 쿼리로 나눠서 조회한다.
+     * IN 파라미터 개수는 in_clause_parameter_padding 으로 맞춰지고, team은 default_batch_fetch_size 로 한번에 초기화된다.
+     * @return 요청한 id 순서대로, 없는 id는 빠진다.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, MemberTeamDto> findAllByIds(Collection<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        List<Member> members = em.unwrap(Session.class)
+                .byMultipleIds(Member.class)
+                .enableSessionCheck(true)
+                .withBatchSize(ID_BATCH_SIZE)
+                .multiLoad(distinctIds);
+
+        Map<Long, MemberTeamDto> result = new LinkedHashMap<>();
+        for (Member findMember : members) {
+            if (findMember == null) {
+                continue;
+            }
+            Team findTeam = findMember.getTeam();
+            result.put(findMember.getId(), new MemberTeamDto(
+                    findMember.getId(),
+                    findMember.getUsername(),
+                    findMember.getAge(),
+                    findTeam != null ? findTeam.getId() : null,
+                    findTeam != null ? findTeam.getName() : null));
+        }
+        return result;
+    }
+
     //JPA
 //    public List<Member> findAll(){
 //        return em.createQuery("select m from member m", Member.class).getResultList();
@@ -51,6 +118,11 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    //NamedQuery - 조건이 없는 고정 쿼리라 매번 JPQL을 만들지 않고 로딩 시점에 파싱된 Member.selectAll 을 쓴다.
+    public List<Member> findAllNamed(){
+        return em.createNamedQuery("Member.selectAll", Member.class).getResultList();
+    }
+
     //JPA
 //    public List<Member> findByUserName(String username) {
 //        return em.createQuery("select m from Member m where m.username = :username", Member.class)
@@ -66,25 +138,26 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    //NamedQuery - 파라미터 값만 바뀌는 고정 쿼리 => Member.selectByUsername
+    public List<Member> findByUserNameNamed(String username){
+        return em.createNamedQuery("Member.selectByUsername", Member.class)
+                .setParameter("username", username)
+                .getResultList();
+    }
+
     //Builder 사용
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
-
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) { // null일수도있고 ""일수도 있으니까 StringUtils.hasText() 사용
-            builder.and(member.username.eq(condition.getUsername()));
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return List.of(); // DB에 가지 않는다.
         }
 
-        if (hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-
-        if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-
-        if (condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
+        BooleanBuilder builder = new BooleanBuilder(); // and(null) 은 무시된다.
+        builder.and(usernameEq(condition.getUsername()));
+        builder.and(usernameStartsWith(condition.getUsernameStartsWith()));
+        builder.and(usernameContains(condition.getUsernameContains()));
+        builder.and(teamNameEq(condition.getTeamName()));
+        builder.and(ageBetween(condition.getAgeGoe(), condition.getAgeLoe()));
 
         return qf
                 .select(new QMemberTeamDto(
@@ -101,6 +174,10 @@ public class MemberJpaRepository {
 
     //where절 파람 사용
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return List.of(); // DB에 가지 않는다.
+        }
 
         return qf
                 .select(new QMemberTeamDto(
@@ -112,28 +189,7 @@ public class MemberJpaRepository {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                        )
+                .where(MemberPredicates.of(condition))
                 .fetch();
     }
-
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null? member.age.loe(ageLoe) : null;
-    }
 }
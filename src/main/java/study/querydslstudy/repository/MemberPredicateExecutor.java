@@ -0,0 +1,10 @@
+package study.querydslstudy.repository;
+
+import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import study.querydslstudy.entity.Member;
+
+/**
+ * QuerydslPredicateExecutor 를 MemberPredicateExecutorImpl 로 덮어써서 실행 전에 Predicate 비용을 검사한다.
+ */
+public interface MemberPredicateExecutor extends QuerydslPredicateExecutor<Member> {
+}
@@ -0,0 +1,116 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.Predicate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
+import org.springframework.data.jpa.repository.support.QuerydslJpaPredicateExecutor;
+import org.springframework.data.querydsl.SimpleEntityPathResolver;
+import org.springframework.data.repository.query.FluentQuery;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.repository.support.PredicateCostAnalyzer;
+import study.querydslstudy.repository.support.PredicateCostAnalyzer.Cost;
+import study.querydslstudy.repository.support.PredicateCostAnalyzer.Shape;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 스프링 데이터는 사용자 구현 fragment 를 기본 구현(QuerydslJpaPredicateExecutor)보다 먼저 찾는다.
+ * 모든 메서드에서 Predicate 비용을 검사하고 지표를 남긴 다음 기본 구현에 위임한다.
+ */
+public class MemberPredicateExecutorImpl implements MemberPredicateExecutor {
+
+    // Member @Table indexes + PK, FK
+    private static final Set<String> INDEXED_PROPERTIES = Set.of("id", "username", "age", "team", "team.id");
+    private static final int MAX_COST = 100;
+    private static final int MAX_DEPTH = 10;
+
+    private final QuerydslJpaPredicateExecutor<Member> delegate;
+    private final PredicateCostAnalyzer analyzer = new PredicateCostAnalyzer(INDEXED_PROPERTIES, MAX_COST, MAX_DEPTH);
+    private final Map<Shape, DistributionSummary> costSummaries = new EnumMap<>(Shape.class);
+    private final Map<Shape, Counter> rejectedCounters = new EnumMap<>(Shape.class);
+
+    public MemberPredicateExecutorImpl(EntityManager em, MeterRegistry meterRegistry) {
+        this.delegate = new QuerydslJpaPredicateExecutor<>(
+                JpaEntityInformationSupport.getEntityInformation(Member.class, em),
+                em, SimpleEntityPathResolver.INSTANCE, null);
+        // shape 태그는 Shape 값 만큼만 생긴다.
+        for (Shape shape : Shape.values()) {
+            costSummaries.put(shape, DistributionSummary.builder("querydsl.predicate.cost")
+                    .tag("entity", "Member")
+                    .tag("shape", shape.tag())
+                    .register(meterRegistry));
+            rejectedCounters.put(shape, Counter.builder("querydsl.predicate.rejected")
+                    .tag("entity", "Member")
+                    .tag("shape", shape.tag())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public Optional<Member> findOne(Predicate predicate) {
+        return delegate.findOne(check(predicate));
+    }
+
+    @Override
+    public Iterable<Member> findAll(Predicate predicate) {
+        return delegate.findAll(check(predicate));
+    }
+
+    @Override
+    public Iterable<Member> findAll(Predicate predicate, Sort sort) {
+        return delegate.findAll(check(predicate), sort);
+    }
+
+    @Override
+    public Iterable<Member> findAll(Predicate predicate, OrderSpecifier<?>... orders) {
+        return delegate.findAll(check(predicate), orders);
+    }
+
+    @Override
+    public Iterable<Member> findAll(OrderSpecifier<?>... orders) {
+        return delegate.findAll(orders);
+    }
+
+    @Override
+    public Page<Member> findAll(Predicate predicate, Pageable pageable) {
+        return delegate.findAll(check(predicate), pageable);
+    }
+
+    @Override
+    public long count(Predicate predicate) {
+        return delegate.count(check(predicate));
+    }
+
+    @Override
+    public boolean exists(Predicate predicate) {
+        return delegate.exists(check(predicate));
+    }
+
+    @Override
+    public <S extends Member, R> R findBy(Predicate predicate, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        return delegate.findBy(check(predicate), queryFunction);
+    }
+
+    private Predicate check(Predicate predicate) {
+        Cost cost = analyzer.analyze(predicate);
+        try {
+            analyzer.check(cost);
+        } catch (IllegalArgumentException e) {
+            rejectedCounters.get(cost.getShape()).increment();
+            throw e;
+        }
+        costSummaries.get(cost.getShape()).record(cost.getScore());
+        return predicate;
+    }
+}
@@ -0,0 +1,94 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.JPQLQuery;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.entity.MemberUsernameGram;
+
+import java.util.Set;
+
+import static study.querydslstudy.entity.QMember.member;
+import static study.querydslstudy.entity.QMemberUsernameGram.memberUsernameGram;
+import static study.querydslstudy.entity.QTeam.team;
+
+/**
+ * MemberSearchCondition 검색 조건 모음
+ * 리포지토리마다 복사해서 쓰던 usernameEq, teamNameEq, ageGoe, ageLoe 를 한곳에 모았다.
+ * 공백 자르기, 빈 문자열 => null 은 MemberSearchCondition.normalize() 한곳에서만 한다.
+ * 여기 메서드는 normalize() 된 값을 받는다고 보고 null 이면 조건 없음으로 처리한다.
+ */
+public final class MemberPredicates {
+
+    private MemberPredicates() {
+    }
+
+    /**
+     * 조건 전체를 and 로 묶은 Predicate, 조건이 하나도 없으면 null (where(null) 은 무시된다)
+     * @param condition normalize() 된 조건
+     */
+    public static Predicate of(MemberSearchCondition condition) {
+        return ExpressionUtils.allOf(
+                usernameEq(condition.getUsername()),
+                usernameStartsWith(condition.getUsernameStartsWith()),
+                usernameContains(condition.getUsernameContains()),
+                teamNameEq(condition.getTeamName()),
+                ageBetween(condition.getAgeGoe(), condition.getAgeLoe()));
+    }
+
+    public static BooleanExpression usernameEq(String username) {
+        return username != null ? member.username.eq(username) : null;
+    }
+
+    public static BooleanExpression usernameStartsWith(String prefix) {
+        return prefix != null ? member.username.startsWith(prefix) : null; // like 'prefix%' => 인덱스 범위 스캔
+    }
+
+    /**
+     * 3-gram 색인에서 찾은 후보 id 로 먼저 좁히고, 후보의 username 만 like '%keyword%' 로 다시 확인한다.
+     * (gram 이 다 있어도 순서가 다를수 있으므로 확인이 필요하다)
+     * 색인은 커밋 직전에 만들어지므로 같은 트랜잭션에서 방금 넣거나 바꾼 username 은 찾지 못한다.
+     */
+    public static BooleanExpression usernameContains(String keyword) {
+        return keyword != null ? member.id.in(usernameCandidates(keyword)).and(member.username.contains(keyword)) : null;
+    }
+
+    /**
+     * keyword 의 gram 을 모두 가진 회원 id, 3글자보다 짧으면 그 글자로 시작하는 gram 을 가진 회원 id
+     */
+    static JPQLQuery<Long> usernameCandidates(String keyword) {
+        Set<String> grams = MemberUsernameGram.keywordGrams(keyword);
+        if (grams.isEmpty()) {
+            return JPAExpressions.selectDistinct(memberUsernameGram.memberId)
+                    .from(memberUsernameGram)
+                    .where(memberUsernameGram.gram.startsWith(keyword));
+        }
+        return JPAExpressions.select(memberUsernameGram.memberId)
+                .from(memberUsernameGram)
+                .where(memberUsernameGram.gram.in(grams))
+                .groupBy(memberUsernameGram.memberId)
+                .having(memberUsernameGram.gram.count().eq((long) grams.size()));
+    }
+
+    public static BooleanExpression teamNameEq(String teamName) {
+        return teamName != null ? team.name.eq(teamName) : null;
+    }
+
+    /**
+     * ageGoe == ageLoe 면 eq, 둘다 있으면 between 하나로 만든다.
+     */
+    public static BooleanExpression ageBetween(Integer ageGoe, Integer ageLoe) {
+        if (ageGoe != null && ageGoe.equals(ageLoe)) {
+            return member.age.eq(ageGoe);
+        }
+        if (ageGoe != null && ageLoe != null) {
+            return member.age.between(ageGoe, ageLoe);
+        }
+        if (ageGoe != null) {
+            return member.age.goe(ageGoe);
+        }
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+}
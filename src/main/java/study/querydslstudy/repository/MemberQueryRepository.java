@@ -1,16 +1,19 @@
 package study.querydslstudy.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.Tuple;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.querydslstudy.dto.MemberSearchCondition;
 import study.querydslstudy.dto.MemberTeamDto;
 import study.querydslstudy.dto.QMemberTeamDto;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydslstudy.entity.QMember.member;
 import static study.querydslstudy.entity.QTeam.team;
 
@@ -19,18 +22,22 @@ import static study.querydslstudy.entity.QTeam.team;
  * 즉 쿼리가 특화되어있는 경우는 이런식으로 따로 Repo를 만드는 것이 좋다.
  */
 @Repository
-
 public class MemberQueryRepository {
 
+    private static final int EXPORT_FETCH_SIZE = 1000;
+
     private final JPAQueryFactory qf;
 
-    public MemberQueryRepository(EntityManager em, JPAQueryFactory qf) {
-        this.qf = new JPAQueryFactory(em);
+    public MemberQueryRepository(JPAQueryFactory qf) {
+        this.qf = qf;
     }
 
-
     //where절 파람 사용
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return List.of(); // DB에 가지 않는다.
+        }
 
         return qf
                 .select(new QMemberTeamDto(
@@ -42,29 +49,49 @@ public class MemberQueryRepository {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberPredicates.of(condition))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
+    /**
+     * 대용량 export 전용
+     * QMemberTeamDto(ConstructorExpression)는 row마다 리플렉션으로 생성자를 호출하고 dto를 새로 만든다.
+     * 여기서는 컬럼을 위치로 꺼내서 하나의 MemberTeamDto 버퍼에 채워 consumer에 넘긴다.
+     * 줄어드는 것은 row마다의 dto 생성과 생성자 리플렉션 뿐이다.
+     * Hibernate가 row마다 만드는 Tuple(Object[])과 박싱된 값, username/teamName 문자열은 그대로 생긴다. (allocation-free 가 아니다)
+     * 주의! consumer는 넘겨받은 dto를 보관하면 안된다. (다음 row에서 덮어쓴다)
+     * @return 처리한 row 수
+     */
+    @Transactional(readOnly = true)
+    public long exportTo(MemberSearchCondition condition, Consumer<MemberTeamDto> consumer) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return 0; // DB에 가지 않는다.
+        }
+        MemberTeamDto buffer = new MemberTeamDto();
+        long count = 0;
 
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null? member.age.goe(ageGoe) : null;
-    }
+        try (Stream<Tuple> rows = qf
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.of(condition))
+                .setHint(HibernateHints.HINT_FETCH_SIZE, EXPORT_FETCH_SIZE) // 한번에 가져올 row 수
+                .setHint(HibernateHints.HINT_READ_ONLY, true) // 스냅샷(dirty checking) 생략
+                .stream()) {
 
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null? member.age.loe(ageLoe) : null;
+            Iterator<Tuple> it = rows.iterator();
+            while (it.hasNext()) {
+                Tuple row = it.next();
+                buffer.setMemberId(row.get(0, Long.class));
+                buffer.setUsername(row.get(1, String.class));
+                buffer.setAge(row.get(2, Integer.class));
+                buffer.setTeamId(row.get(3, Long.class));
+                buffer.setTeamName(row.get(4, String.class));
+                consumer.accept(buffer);
+                count++;
+            }
+        }
+        return count;
     }
-
 }
@@ -12,4 +12,6 @@ public interface MemberRepositoryCustom {
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplexOptimize(MemberSearchCondition condition, Pageable pageable);
+    // 키셋 페이징 - lastMemberId 다음부터 size 개 (첫 페이지는 null)
+    List<MemberTeamDto> searchAfter(MemberSearchCondition condition, Long lastMemberId, int size);
 }
@@ -1,11 +1,9 @@
 package study.querydslstudy.repository;
 
 import com.querydsl.core.QueryResults;
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
-import jakarta.persistence.EntityManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
@@ -17,7 +15,6 @@ import study.querydslstudy.entity.Member;
 
 import java.util.List;
 
-import static org.springframework.util.StringUtils.hasText;
 import static study.querydslstudy.entity.QMember.member;
 import static study.querydslstudy.entity.QTeam.team;
 
@@ -25,13 +22,17 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
 
     private final JPAQueryFactory qf;
 
-    public MemberRepositoryImpl(EntityManager em, JPAQueryFactory qf) {
-        this.qf = new JPAQueryFactory(em);
+    public MemberRepositoryImpl(JPAQueryFactory qf) {
+        this.qf = qf;
     }
 
     @Override
     //where절 파람 사용
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return List.of(); // DB에 가지 않는다.
+        }
 
         return qf
                 .select(new QMemberTeamDto(
@@ -43,31 +44,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberPredicates.of(condition))
                 .fetch();
     }
 
-    private BooleanExpression usernameEq(String username) {
-        return hasText(username) ? member.username.eq(username) : null;
-    }
-
-    private BooleanExpression teamNameEq(String teamName) {
-        return hasText(teamName) ? team.name.eq(teamName) : null;
-    }
-
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe != null? member.age.goe(ageGoe) : null;
-    }
-
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe != null? member.age.loe(ageLoe) : null;
-    }
-
     /**
      * 페이징 처리
      * @param condition
@@ -76,6 +56,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
      */
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return new PageImpl<>(List.of(), pageable, 0); // DB에 가지 않는다.
+        }
         QueryResults<MemberTeamDto> results = qf
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -86,12 +70,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberPredicates.of(condition))
+                .orderBy(member.id.asc()) // 순서가 정해져야 페이지끼리 겹치거나 빠지지 않는다. (searchAfter 와 같은 순서)
                 .offset(pageable.getOffset())  // Paging 1, 몇번째를 스킵하고 몇번째부터 시작할것인가
                 .limit(pageable.getPageSize()) // Paging 2, 한 페이지에 몇개까지 조회할것인가
                 .fetchResults();
@@ -104,6 +84,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return new PageImpl<>(List.of(), pageable, 0); // DB에 가지 않는다.
+        }
         List<MemberTeamDto> content = qf
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -114,12 +98,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberPredicates.of(condition))
+                .orderBy(member.id.asc())
                 .offset(pageable.getOffset())  // Paging 1
                 .limit(pageable.getPageSize()) // Paging 2
                 .fetch();
@@ -128,12 +108,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 .select(member)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                ).fetchCount(); // 내가 직접 totalCount 쿼리를 날린다.
+                .where(MemberPredicates.of(condition)).fetchCount(); // 내가 직접 totalCount 쿼리를 날린다.
 //        이렇게 나누면 함수 자체에 조건을 부여할수있다.
 
         return new PageImpl<>(content, pageable, total);
@@ -141,6 +116,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
 
     @Override
     public Page<MemberTeamDto> searchPageComplexOptimize(MemberSearchCondition condition, Pageable pageable) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return new PageImpl<>(List.of(), pageable, 0); // DB에 가지 않는다.
+        }
         List<MemberTeamDto> content = qf
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -151,12 +130,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 // 이걸 .selectFrom(member) 로 바꿔도 사용가능하다.=> 재사용성이 좋다.
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
+                .where(MemberPredicates.of(condition))
+                .orderBy(member.id.asc())
                 .offset(pageable.getOffset())  // Paging 1
                 .limit(pageable.getPageSize()) // Paging 2
                 .fetch();
@@ -165,14 +140,36 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom  {
                 .select(member)
                 .from(member)
                 .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                .where(MemberPredicates.of(condition));
 //        countQuery 최적화 - 함수 자체에 조건을 부여해서 성능 최적화
 //        조건부가 만족할때만 쿼리를 날려준다.
 //        (첫번째 페이지가 100개인데 데이터가 3개밖에 안나오면 CountQuery를 사용하지 않고 그걸 totalCount로 한다)
         return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());    }
+
+    /**
+     * 키셋(no-offset) 페이징
+     * offset 은 앞의 row 를 모두 읽고 버리므로 뒤로 갈수록 느려진다.
+     * 여기서는 PK 인덱스로 lastMemberId 위치에서 바로 시작하므로 몇번째 페이지든 비용이 같다. (전체 카운트는 주지 않는다)
+     */
+    @Override
+    public List<MemberTeamDto> searchAfter(MemberSearchCondition condition, Long lastMemberId, int size) {
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return List.of(); // DB에 가지 않는다.
+        }
+        return qf
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberPredicates.of(condition),
+                        lastMemberId == null ? null : member.id.gt(lastMemberId))
+                .orderBy(member.id.asc())
+                .limit(size)
+                .fetch();
+    }
 }
@@ -1,27 +1,42 @@
 package study.querydslstudy.repository;
 
-import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
-import org.apache.logging.log4j.util.Strings;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 import study.querydslstudy.dto.MemberSearchCondition;
 import study.querydslstudy.entity.Member;
+import study.querydslstudy.repository.support.QueryOptions;
 import study.querydslstudy.repository.support.Querydsl4RepositorySupport;
+import study.querydslstudy.repository.support.SortPolicy;
 
 import java.util.List;
 
-import static org.apache.logging.log4j.util.Strings.*;
 import static study.querydslstudy.entity.QMember.member;
 import static study.querydslstudy.entity.QTeam.team;
 
 @Repository
 public class MemberTestRepository extends Querydsl4RepositorySupport {
+    // 인덱스가 있는 컬럼만 정렬 허용 (Member @Table indexes)
+    private static final SortPolicy SORT_POLICY = SortPolicy.of("id", member.id)
+            .allow("username", member.username)
+            .allow("age", member.age);
+    // 화면 페이징 조회 - 한 페이지 분량씩 fetch, 오래 걸리면 DB에서 끊는다.
+    // 결과가 엔티티라서 readOnly 는 걸지 않는다. (호출한 쪽이 수정하면 반영되어야 한다)
+    private static final QueryOptions PAGE_OPTIONS = QueryOptions.none()
+            .fetchSize(100)
+            .timeoutMs(3000)
+            .comment("MemberTestRepository.searchPageByApplyPage");
+
     public MemberTestRepository() {
         super(Member.class);
     }
+    @Override
+    protected SortPolicy getSortPolicy() {
+        return SORT_POLICY;
+    }
     public List<Member> basicSelect() {
         return select(member)
                 .from(member)
@@ -33,13 +48,14 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
     }
     public Page<Member> searchPageByApplyPage(MemberSearchCondition condition,
                                               Pageable pageable) {
-        JPAQuery<Member> query = selectFrom(member)
+        condition = condition.normalize();
+        if (condition.isUnsatisfiable()) {
+            return emptyPage(pageable);
+        }
+        JPAQuery<Member> query = withOptions(selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe()));
-        List<Member> content = getQuerydsl().applyPagination(pageable, query)
+                .where(MemberPredicates.of(condition)), PAGE_OPTIONS);
+        List<Member> content = paginate(pageable, query)
                 .fetch();
         return PageableExecutionUtils.getPage(content, pageable,
                 query::fetchCount);
@@ -47,44 +63,39 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 
     public Page<Member> applyPagination(MemberSearchCondition condition,
                                         Pageable pageable) {
-        return applyPagination(pageable, query -> query
+        MemberSearchCondition normalized = condition.normalize();
+        if (normalized.isUnsatisfiable()) {
+            return emptyPage(pageable);
+        }
+        Page<Member> page = applyPagination(pageable, query -> query
                 .selectFrom(member)
                 .leftJoin(member.team, team)
-                .where(usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())));
+                .where(MemberPredicates.of(normalized)));
+        return page;
     }
 
     //컨텐트쿼리와 카운트쿼리 분리
     public Page<Member> applyPagination2(MemberSearchCondition condition,
                                          Pageable pageable) {
-        return applyPagination(pageable, contentQuery -> contentQuery
+        MemberSearchCondition normalized = condition.normalize();
+        if (normalized.isUnsatisfiable()) {
+            return emptyPage(pageable);
+        }
+        Page<Member> page = applyPagination(pageable, contentQuery -> contentQuery
                         .selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe())),
+                        .where(MemberPredicates.of(normalized)),
                 countQuery -> countQuery
                         .selectFrom(member)
                         .leftJoin(member.team, team)
-                        .where(usernameEq(condition.getUsername()),
-                                teamNameEq(condition.getTeamName()),
-                                ageGoe(condition.getAgeGoe()),
-                                ageLoe(condition.getAgeLoe()))
+                        .where(MemberPredicates.of(normalized))
         );
+        return page;
     }
-    private BooleanExpression usernameEq(String username) {
-        return isEmpty(username) ? null : member.username.eq(username);
-    }
-    private BooleanExpression teamNameEq(String teamName) {
-        return isEmpty(teamName) ? null : team.name.eq(teamName);
-    }
-    private BooleanExpression ageGoe(Integer ageGoe) {
-        return ageGoe == null ? null : member.age.goe(ageGoe);
-    }
-    private BooleanExpression ageLoe(Integer ageLoe) {
-        return ageLoe == null ? null : member.age.loe(ageLoe);
+
+    // DB에 가지 않는다. 정렬 속성 검사는 쿼리를 날릴때와 똑같이 한다.
+    private Page<Member> emptyPage(Pageable pageable) {
+        SORT_POLICY.toOrderSpecifiers(pageable.getSort());
+        return new PageImpl<>(List.of(), pageable, 0);
     }
-}
\ No newline at end of file
+}
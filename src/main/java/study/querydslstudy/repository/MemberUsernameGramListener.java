@@ -0,0 +1,102 @@
+package study.querydslstudy.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydslstudy.entity.Member;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member 의 insert, username 변경, delete 를 트랜잭션(세션) 단위로 모아두었다가
+ * 커밋 직전에 그 회원들의 username 3-gram 색인(MemberUsernameGram)만 다시 만든다. 롤백되면 아무것도 하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberUsernameGramListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+
+    private final Map<SharedSessionContractImplementor, Changes> changes = new ConcurrentHashMap<>();
+
+    private static class Changes {
+        private final Map<Long, String> usernames = new TreeMap<>(); // 회원 id => 새 username, 삭제면 null
+        private final Set<Long> inserted = new HashSet<>();
+    }
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member findMember) {
+            Changes sessionChanges = changes(event.getSession());
+            sessionChanges.usernames.put(findMember.getId(), findMember.getUsername());
+            sessionChanges.inserted.add(findMember.getId());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member findMember) {
+            int usernameIndex = Arrays.asList(event.getPersister().getPropertyNames()).indexOf("username");
+            Object[] oldState = event.getOldState();
+            // detached 엔티티 update 면 이전 username 을 모르므로 다시 만든다.
+            if (oldState == null || !Objects.equals(oldState[usernameIndex], event.getState()[usernameIndex])) {
+                changes(event.getSession()).usernames.put(findMember.getId(), findMember.getUsername());
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changes(event.getSession()).usernames.put((Long) event.getId(), null);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * 세션의 첫 변경이면 커밋 직전/직후 처리를 세션당 한번 등록한다.
+     */
+    private Changes changes(EventSource session) {
+        return changes.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, ss) -> changes.remove(ss));
+            return new Changes();
+        });
+    }
+
+    private void apply(SessionImplementor session) {
+        Changes sessionChanges = changes.remove(session);
+        if (sessionChanges == null) {
+            return;
+        }
+        MemberUsernameIndex.apply(session, sessionChanges.usernames, sessionChanges.inserted);
+    }
+}
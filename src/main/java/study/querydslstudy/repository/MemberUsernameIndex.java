@@ -0,0 +1,92 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.config.QuerydslConfig;
+import study.querydslstudy.entity.MemberUsernameGram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static study.querydslstudy.entity.QMember.member;
+import static study.querydslstudy.entity.QMemberUsernameGram.memberUsernameGram;
+
+/**
+ * username 3-gram 색인(MemberUsernameGram) 갱신
+ * - apply : 커밋 직전 바뀐 회원의 gram 만 지우고 다시 넣는다. (MemberUsernameGramListener)
+ * - rebuildAll : 전체 재색인 (벌크 update/delete 뒤, 색인이 어긋났을때)
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberUsernameIndex {
+
+    private static final int REBUILD_CHUNK = 1000;
+
+    private final EntityManager em;
+    private final JPAQueryFactory qf;
+
+    /**
+     * 벌크 연산(update/delete execute())은 이벤트를 거치지 않으므로 username 을 바꿨으면 끝나고 직접 호출해야 한다.
+     * 회원 id 순서로 나눠서 넣고, 넣은 gram 은 바로 detach 해서 영속성 컨텍스트가 커지지 않게 한다. (호출한 쪽 엔티티는 그대로)
+     */
+    @Transactional
+    public void rebuildAll() {
+        em.flush();
+        qf.delete(memberUsernameGram).execute();
+        Long lastId = 0L;
+        List<Tuple> rows;
+        do {
+            rows = qf.select(member.id, member.username)
+                    .from(member)
+                    .where(member.id.gt(lastId))
+                    .orderBy(member.id.asc())
+                    .limit(REBUILD_CHUNK)
+                    .fetch();
+            List<MemberUsernameGram> grams = new ArrayList<>();
+            for (Tuple row : rows) {
+                grams.addAll(persistGrams(em, row.get(member.id), row.get(member.username)));
+            }
+            em.flush();
+            grams.forEach(em::detach);
+            if (!rows.isEmpty()) {
+                lastId = rows.get(rows.size() - 1).get(member.id);
+            }
+        } while (rows.size() == REBUILD_CHUNK);
+    }
+
+    /**
+     * 커밋 직전 Hibernate 세션에서 호출되므로 EntityManager를 받는다.
+     * @param usernames 회원 id => 새 username (삭제된 회원은 null)
+     * @param inserted 이 트랜잭션에서 새로 넣은 회원 id (지울 gram 이 없다)
+     */
+    static void apply(EntityManager em, Map<Long, String> usernames, Set<Long> inserted) {
+        Set<Long> changed = usernames.keySet().stream()
+                .filter(id -> !inserted.contains(id))
+                .collect(Collectors.toSet());
+        if (!changed.isEmpty()) {
+            new JPAQueryFactory(QuerydslConfig.TEMPLATES, em)
+                    .delete(memberUsernameGram)
+                    .where(memberUsernameGram.memberId.in(changed))
+                    .execute();
+        }
+        usernames.forEach((memberId, username) -> persistGrams(em, memberId, username));
+        em.flush(); // 커밋 직전 flush가 이미 끝났으므로 gram insert 를 직접 내보낸다.
+    }
+
+    private static List<MemberUsernameGram> persistGrams(EntityManager em, Long memberId, String username) {
+        List<MemberUsernameGram> grams = new ArrayList<>();
+        for (String gram : MemberUsernameGram.grams(username)) {
+            MemberUsernameGram entity = new MemberUsernameGram(gram, memberId);
+            em.persist(entity);
+            grams.add(entity);
+        }
+        return grams;
+    }
+}
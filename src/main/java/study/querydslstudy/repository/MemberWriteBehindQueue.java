@@ -0,0 +1,367 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.dto.MemberUpdateDto;
+import study.querydslstudy.entity.Member;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static study.querydslstudy.entity.QMember.member;
+
+/**
+ * 회원 프로필 변경 write-behind 큐 (app.write-behind.enabled=true 일때만 등록)
+ * 같은 회원에 대한 변경은 flush 주기 안에서 하나로 합쳐지고,
+ * 쓰기 전용 스레드 하나가 batch-size 단위 트랜잭션으로 내보낸다. (hibernate.jdbc.batch_size 로 JDBC 배치)
+ * 대기중인 회원수가 capacity 에 차면 submit 은 자리가 날때까지 기다리다가 시간이 지나면 거절한다.
+ * 반영에 실패한 변경은 다음 flush 에 다시 시도하고, max-attempts 번 실패하면 에러 로그를 남기고 버린다.
+ *
+ * durability
+ * - MEMORY : 메모리에만 둔다. 프로세스가 죽으면 flush 전 변경은 사라진다.
+ * - JOURNAL : submit 마다 로컬 파일에 append 하고, 디스크까지 내려간(fsync) 뒤 반환한다. 재시작시 다시 읽어서 반영한다.
+ *             fsync 는 그룹 커밋으로 한다. append 는 lock 안에서 버퍼에 쓰기만 하고, lock 밖에서 기다리던 submit 중
+ *             하나(leader)가 그때까지 쌓인 줄을 한번에 fsync 한 뒤 나머지를 깨운다. => submit 처리량이 디스크 fsync 횟수에 묶이지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "app.write-behind.enabled", havingValue = "true")
+public class MemberWriteBehindQueue {
+
+    public enum Durability {MEMORY, JOURNAL}
+
+    private final JPAQueryFactory qf;
+    private final TransactionTemplate tx;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long submitTimeoutMs;
+    private final int maxAttempts;
+    private final Durability durability;
+    private final Path journalPath;
+
+    private final Object lock = new Object();
+    private LinkedHashMap<Long, MemberUpdateDto> pending = new LinkedHashMap<>();
+    private final Map<Long, Integer> failures = new HashMap<>(); // 회원별 연속 실패 횟수
+    private FileOutputStream journalOut;
+    private BufferedWriter journal;
+
+    // 그룹 커밋 - appendedSeq 는 lock, syncedSeq/syncing 은 syncLock 으로 지킨다. (lock => syncLock 순서로만 잡는다)
+    private final Object syncLock = new Object();
+    private long appendedSeq;
+    private long syncedSeq;
+    private boolean syncing;
+    private final AtomicLong syncCount = new AtomicLong();
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "member-write-behind");
+        thread.setDaemon(true); // 종료시 남은 변경은 stop() 에서 내보낸다.
+        return thread;
+    });
+
+    public MemberWriteBehindQueue(JPAQueryFactory qf,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.write-behind.capacity:10000}") int capacity,
+                                  @Value("${app.write-behind.batch-size:100}") int batchSize,
+                                  @Value("${app.write-behind.flush-interval-ms:200}") long flushIntervalMs,
+                                  @Value("${app.write-behind.submit-timeout-ms:1000}") long submitTimeoutMs,
+                                  @Value("${app.write-behind.max-attempts:5}") int maxAttempts,
+                                  @Value("${app.write-behind.durability:MEMORY}") Durability durability,
+                                  @Value("${app.write-behind.journal-path:./member-write-behind.journal}") Path journalPath) {
+        this.qf = qf;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.maxAttempts = maxAttempts;
+        this.durability = durability;
+        this.journalPath = journalPath;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (durability == Durability.JOURNAL) {
+            replayJournal();
+            openJournal();
+        }
+        writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        writer.shutdown();
+        writer.awaitTermination(10, TimeUnit.SECONDS);
+        flush(); // 남은 변경 내보내기
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * 변경을 큐에 넣는다. 이미 대기중인 회원이면 기존 변경과 합친다.
+     * @throws RejectedExecutionException 큐가 가득 찬 상태가 submit-timeout-ms 동안 계속될때
+     * @throws UncheckedIOException JOURNAL 에서 저널을 디스크에 내리지 못했을때
+     */
+    public void submit(Long memberId, MemberUpdateDto update) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + submitTimeoutMs;
+        long seq;
+        synchronized (lock) {
+            while (pending.size() >= capacity && !pending.containsKey(memberId)) {
+                long remain = deadline - System.currentTimeMillis();
+                if (remain <= 0) {
+                    throw new RejectedExecutionException("member write-behind queue is full. capacity=" + capacity);
+                }
+                lock.wait(remain);
+            }
+            seq = appendJournal(memberId, update);
+            pending.merge(memberId, update, MemberUpdateDto::merge);
+        }
+        if (seq > 0) {
+            awaitDurable(seq);
+        }
+    }
+
+    long journalSyncCount() {
+        return syncCount.get();
+    }
+
+    public int pendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    /**
+     * 예외가 밖으로 나가면 scheduleWithFixedDelay 가 이후 실행을 모두 취소하므로 여기서 잡는다.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            log.error("member write-behind flush failed", e);
+        }
+    }
+
+    void flush() {
+        Map<Long, MemberUpdateDto> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            lock.notifyAll();
+        }
+
+        List<Long> ids = new ArrayList<>(batch.keySet());
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + batchSize, ids.size()));
+            try {
+                tx.executeWithoutResult(status -> {
+                    List<Member> members = qf.selectFrom(member)
+                            .where(member.id.in(chunk))
+                            .fetch();
+                    for (Member findMember : members) {
+                        MemberUpdateDto update = batch.get(findMember.getId());
+                        findMember.changeProfile(update.getUsername(), update.getAge());
+                    }
+                });
+                succeeded(chunk);
+            } catch (RuntimeException e) {
+                log.error("member write-behind flush failed. retry later. size={}", chunk.size(), e);
+                requeue(chunk, batch);
+            }
+        }
+        compactJournal();
+    }
+
+    private void succeeded(List<Long> ids) {
+        synchronized (lock) {
+            if (!failures.isEmpty()) {
+                ids.forEach(failures::remove);
+            }
+        }
+    }
+
+    /**
+     * 실패한 변경을 다시 넣는다. 그 사이에 들어온 변경이 더 새로운 값이다.
+     * max-attempts 번 연속 실패한 변경은 버린다. (그 사이 들어온 새 변경은 남는다)
+     */
+    private void requeue(List<Long> ids, Map<Long, MemberUpdateDto> batch) {
+        synchronized (lock) {
+            for (Long id : ids) {
+                int attempts = failures.merge(id, 1, Integer::sum);
+                if (attempts >= maxAttempts) {
+                    failures.remove(id);
+                    log.error("member write-behind update dropped after {} attempts. memberId={}, update={}",
+                            attempts, id, batch.get(id));
+                    continue;
+                }
+                pending.merge(id, batch.get(id), (newer, failed) -> failed.merge(newer));
+            }
+        }
+    }
+
+    /**
+     * lock 안에서 부른다. 버퍼에 쓰기만 하고 fsync 는 awaitDurable 에서 한다.
+     * @return 이 줄의 순번, 저널을 쓰지 않으면 0
+     */
+    private long appendJournal(Long memberId, MemberUpdateDto update) {
+        if (journal == null) {
+            return 0;
+        }
+        try {
+            journal.write(encode(memberId, update));
+            journal.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("member write-behind journal append failed", e);
+        }
+        return ++appendedSeq;
+    }
+
+    /**
+     * seq 번 줄까지 디스크에 내려갈때까지 기다린다. (lock 밖에서 부른다)
+     * 진행중인 fsync 가 없으면 직접 leader 가 되어 지금까지 쌓인 줄 전부를 fsync 하고, 있으면 끝나기를 기다린다.
+     */
+    private void awaitDurable(long seq) throws InterruptedException {
+        synchronized (syncLock) {
+            while (syncing && syncedSeq < seq) {
+                syncLock.wait();
+            }
+            if (syncedSeq >= seq) {
+                return;
+            }
+            syncing = true;
+        }
+
+        long target = 0;
+        IOException failure = null;
+        try {
+            FileOutputStream out;
+            synchronized (lock) {
+                target = appendedSeq; // seq 뒤에 붙은 줄도 같이 내려간다.
+                out = journalOut;
+                journal.flush(); // 버퍼 => OS
+            }
+            out.getFD().sync(); // OS => 디스크, lock 밖이라 그동안 다른 submit 은 계속 append 한다.
+            syncCount.incrementAndGet();
+        } catch (IOException e) {
+            failure = e;
+        }
+
+        synchronized (syncLock) {
+            syncing = false;
+            if (failure == null) {
+                syncedSeq = Math.max(syncedSeq, target);
+            }
+            syncLock.notifyAll();
+            if (syncedSeq >= seq) {
+                return; // 실패했어도 그 사이 압축(compactJournal)이 새 파일에 fsync 해뒀으면 된다.
+            }
+        }
+        // 메모리 큐에는 이미 들어갔으므로 반영은 될수 있지만, 재시작 후까지 남는다는 보장은 없다.
+        throw new UncheckedIOException("member write-behind journal sync failed", failure);
+    }
+
+    /**
+     * 아직 반영되지 않은 변경만 남기고 저널을 다시 쓴다.
+     */
+    private void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        synchronized (lock) {
+            try {
+                Path tmp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+                try (FileOutputStream tmpOut = new FileOutputStream(tmp.toFile());
+                     BufferedWriter out = new BufferedWriter(new OutputStreamWriter(tmpOut, StandardCharsets.UTF_8))) {
+                    for (Map.Entry<Long, MemberUpdateDto> entry : pending.entrySet()) {
+                        out.write(encode(entry.getKey(), entry.getValue()));
+                        out.newLine();
+                    }
+                    out.flush();
+                    tmpOut.getFD().sync();
+                }
+                journal.close();
+                Files.move(tmp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                // 아직 반영 안 된 변경은 모두 새 파일에 fsync 되었으므로 지금까지 append 된 줄은 다 내려간 셈이다.
+                synchronized (syncLock) {
+                    syncedSeq = Math.max(syncedSeq, appendedSeq);
+                    syncLock.notifyAll();
+                }
+            } catch (IOException e) {
+                // 기존 저널은 그대로 남는다. 반영된 줄은 재시작시 한번 더 적용될 뿐이다.
+                log.error("member write-behind journal compaction failed", e);
+            } finally {
+                reopenJournal();
+            }
+        }
+    }
+
+    private void openJournal() throws IOException {
+        journalOut = new FileOutputStream(journalPath.toFile(), true);
+        journal = new BufferedWriter(new OutputStreamWriter(journalOut, StandardCharsets.UTF_8));
+    }
+
+    // 압축 중에 실패해도 submit 이 닫힌 writer 에 쓰지 않도록 항상 새로 연다.
+    private void reopenJournal() {
+        try {
+            journal.close();
+            openJournal();
+        } catch (IOException e) {
+            throw new UncheckedIOException("member write-behind journal reopen failed", e);
+        }
+    }
+
+    private void replayJournal() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        for (String line : Files.readAllLines(journalPath, StandardCharsets.UTF_8)) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] cols = line.split(",", -1);
+            Long memberId = Long.valueOf(cols[0]);
+            Integer age = cols[1].isEmpty() ? null : Integer.valueOf(cols[1]);
+            String username = cols[2].isEmpty() ? null
+                    : new String(Base64.getDecoder().decode(cols[2]), StandardCharsets.UTF_8);
+            pending.merge(memberId, new MemberUpdateDto(username, age), MemberUpdateDto::merge);
+        }
+        log.info("member write-behind journal replayed. pending={}", pending.size());
+    }
+
+    // id,age,base64(username) - 값이 없으면 빈칸
+    private String encode(Long memberId, MemberUpdateDto update) {
+        return memberId + ","
+                + (update.getAge() == null ? "" : update.getAge()) + ","
+                + (update.getUsername() == null ? ""
+                : Base64.getEncoder().encodeToString(update.getUsername().getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,39 @@
+package study.querydslstudy.repository;
+
+/**
+ * 한 트랜잭션 안에서 한 팀에 생긴 변경의 합
+ * TeamStatsEventListener 가 모으고 커밋 직전에 TeamStatsUpdater.apply 가 반영한다.
+ * min/max 는 증감으로 되돌릴수 없으므로 빠진 나이의 범위를 기억해 두었다가 현재 min/max 와 같을때만 다시 계산한다.
+ */
+class TeamStatsDelta {
+
+    long memberCount;
+    long ageSum;
+    Integer addedMin;
+    Integer addedMax;
+    Integer removedMin;
+    Integer removedMax;
+
+    String teamName; // 팀이 추가되거나 이름이 바뀐 경우
+    boolean teamCreated;
+    boolean teamDeleted;
+    boolean recompute; // 이전 상태를 알수 없는 변경 => 팀 전체를 다시 계산
+
+    void add(int age) {
+        memberCount++;
+        ageSum += age;
+        addedMin = addedMin == null ? age : Math.min(addedMin, age);
+        addedMax = addedMax == null ? age : Math.max(addedMax, age);
+    }
+
+    void remove(int age) {
+        memberCount--;
+        ageSum -= age;
+        removedMin = removedMin == null ? age : Math.min(removedMin, age);
+        removedMax = removedMax == null ? age : Math.max(removedMax, age);
+    }
+
+    boolean hasMemberChange() {
+        return addedMin != null || removedMin != null;
+    }
+}
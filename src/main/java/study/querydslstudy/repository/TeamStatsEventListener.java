@@ -0,0 +1,160 @@
+package study.querydslstudy.repository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member/Team 의 insert, update, delete 를 보고 팀별 증감분(TeamStatsDelta)을 트랜잭션(세션) 단위로 모아둔다.
+ * 커밋 직전(flush 이후)에 모아둔 증감분만 TeamStats 에 반영한다. 롤백되면 아무것도 하지 않는다.
+ * 팀을 옮긴 경우(changeTeam)는 이전 팀에서 빼고 새 팀에 더한다.
+ * 대량 insert 처럼 증감분을 모을 필요가 없으면 runWithoutStats 로 감싸고 끝난 뒤 TeamStatsUpdater.refreshAll() 을 한번 호출한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsEventListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+
+    private static final ThreadLocal<Boolean> suppressed = ThreadLocal.withInitial(() -> false);
+
+    private final Map<SharedSessionContractImplementor, Map<Long, TeamStatsDelta>> deltas = new ConcurrentHashMap<>();
+    private PersistenceUnitUtil util;
+
+    @PostConstruct
+    public void register() {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        util = sessionFactory.getPersistenceUnitUtil();
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * 현재 스레드에서 work 가 flush 하는 변경은 집계하지 않는다. (중첩 호출 가능)
+     * 통계가 맞지 않게 되므로 호출한 쪽이 끝난 뒤 TeamStatsUpdater.refreshAll() 로 다시 계산해야 한다.
+     */
+    public static void runWithoutStats(Runnable work) {
+        boolean previous = suppressed.get();
+        suppressed.set(true);
+        try {
+            work.run();
+        } finally {
+            suppressed.set(previous);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (suppressed.get()) {
+            return;
+        }
+        if (event.getEntity() instanceof Member findMember) {
+            delta(event.getSession(), findMember.getTeam()).ifPresent(d -> d.add(findMember.getAge()));
+        } else if (event.getEntity() instanceof Team findTeam) {
+            delta(event.getSession(), findTeam).ifPresent(d -> {
+                d.teamCreated = true;
+                d.teamName = findTeam.getName();
+            });
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (suppressed.get()) {
+            return;
+        }
+        if (event.getEntity() instanceof Member) {
+            Object[] oldState = event.getOldState();
+            Object[] state = event.getState();
+            String[] names = event.getPersister().getPropertyNames();
+            int teamIndex = Arrays.asList(names).indexOf("team");
+            int ageIndex = Arrays.asList(names).indexOf("age");
+
+            if (oldState == null) { // detached 엔티티 update => 이전 팀, 나이를 모른다.
+                delta(event.getSession(), state[teamIndex]).ifPresent(d -> d.recompute = true);
+                return;
+            }
+            Long oldTeamId = teamId(oldState[teamIndex]);
+            Long newTeamId = teamId(state[teamIndex]);
+            int oldAge = (Integer) oldState[ageIndex];
+            int newAge = (Integer) state[ageIndex];
+            if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+                return; // username 만 바뀜
+            }
+            delta(event.getSession(), oldState[teamIndex]).ifPresent(d -> d.remove(oldAge));
+            delta(event.getSession(), state[teamIndex]).ifPresent(d -> d.add(newAge));
+        } else if (event.getEntity() instanceof Team findTeam) {
+            delta(event.getSession(), findTeam).ifPresent(d -> d.teamName = findTeam.getName());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (suppressed.get()) {
+            return;
+        }
+        if (event.getEntity() instanceof Member) {
+            String[] names = event.getPersister().getPropertyNames();
+            Object[] deletedState = event.getDeletedState();
+            int age = (Integer) deletedState[Arrays.asList(names).indexOf("age")];
+            delta(event.getSession(), deletedState[Arrays.asList(names).indexOf("team")]).ifPresent(d -> d.remove(age));
+        } else if (event.getEntity() instanceof Team findTeam) {
+            delta(event.getSession(), findTeam).ifPresent(d -> d.teamDeleted = true);
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private Long teamId(Object team) {
+        return team == null ? null : (Long) util.getIdentifier(team); // 프록시를 초기화하지 않는다.
+    }
+
+    /**
+     * 팀이 없으면(null) empty, 세션의 첫 변경이면 커밋 직전/직후 처리를 세션당 한번 등록한다.
+     */
+    private Optional<TeamStatsDelta> delta(EventSource session, Object team) {
+        Long teamId = teamId(team);
+        if (teamId == null) {
+            return Optional.empty();
+        }
+        Map<Long, TeamStatsDelta> sessionDeltas = deltas.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, ss) -> deltas.remove(ss));
+            return new TreeMap<>(); // teamId 순서로 행 락을 잡는다.
+        });
+        return Optional.of(sessionDeltas.computeIfAbsent(teamId, id -> new TeamStatsDelta()));
+    }
+
+    private void apply(SessionImplementor session) {
+        Map<Long, TeamStatsDelta> sessionDeltas = deltas.remove(session);
+        if (sessionDeltas == null) {
+            return;
+        }
+        TeamStatsUpdater.apply(session, sessionDeltas);
+    }
+}
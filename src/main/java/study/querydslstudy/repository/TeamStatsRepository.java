@@ -0,0 +1,14 @@
+package study.querydslstudy.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import study.querydslstudy.entity.TeamStats;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface TeamStatsRepository extends JpaRepository<TeamStats, Long> {
+
+    Optional<TeamStats> findByTeamName(String teamName);
+
+    List<TeamStats> findAllByOrderByTeamNameAsc();
+}
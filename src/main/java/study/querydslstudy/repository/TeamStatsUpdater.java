@@ -0,0 +1,168 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.config.QuerydslConfig;
+import study.querydslstudy.entity.TeamStats;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+
+import static study.querydslstudy.entity.QMember.member;
+import static study.querydslstudy.entity.QTeam.team;
+import static study.querydslstudy.entity.QTeamStats.teamStats;
+
+/**
+ * TeamStats 갱신
+ * - apply : 커밋 직전 증감분 반영. count/sum 은 update ... set member_count = member_count + ? 로 더하고,
+ *           min/max 는 행 락(PESSIMISTIC_WRITE)을 잡은 뒤 빠진 나이가 현재 min/max 일때만 다시 계산한다.
+ *           => 회원 한명 변경의 비용은 팀 크기와 상관없고, 같은 팀을 동시에 바꿔도 서로의 변경을 덮어쓰지 않는다.
+ * - refreshAll : 전체 재계산 (벌크 연산 뒤, 통계가 어긋났을때)
+ * 여러 팀의 행 락을 잡을때는 항상 teamId 순서로 잡아서 트랜잭션끼리 데드락이 나지 않게 한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamStatsUpdater {
+
+    private final EntityManager em;
+    private final JPAQueryFactory qf;
+
+    /**
+     * 벌크 연산(update/delete execute())은 영속성 컨텍스트와 이벤트를 거치지 않으므로 끝나고 직접 호출해야 한다.
+     * 호출한 쪽의 영속성 컨텍스트는 비우지 않는다.
+     */
+    @Transactional
+    public void refreshAll() {
+        em.flush();
+        List<Long> teamIds = qf.select(team.id).from(team).fetch();
+        List<TeamStats> orphans = qf.selectFrom(teamStats)
+                .where(teamIds.isEmpty() ? null : teamStats.teamId.notIn(teamIds))
+                .fetch();
+        orphans.forEach(em::remove); // 삭제된 팀
+        refresh(em, teamIds);
+    }
+
+    /**
+     * 커밋 직전 Hibernate 세션에서 호출되므로 EntityManager를 받는다. (공유 팩토리는 스프링 프록시 EntityManager에 묶여있다)
+     * @param deltas teamId 순으로 정렬된 팀별 증감분
+     */
+    static void apply(EntityManager em, Map<Long, TeamStatsDelta> deltas) {
+        JPAQueryFactory qf = new JPAQueryFactory(QuerydslConfig.TEMPLATES, em);
+        for (Map.Entry<Long, TeamStatsDelta> entry : deltas.entrySet()) {
+            Long teamId = entry.getKey();
+            TeamStatsDelta delta = entry.getValue();
+
+            if (delta.teamDeleted) {
+                qf.delete(teamStats).where(teamStats.teamId.eq(teamId)).execute();
+                continue;
+            }
+            if (delta.teamCreated || delta.recompute) {
+                refresh(em, List.of(teamId)); // 새 팀은 이 트랜잭션의 회원뿐이라 비용이 작다.
+                continue;
+            }
+
+            long updated = qf.update(teamStats)
+                    .set(teamStats.memberCount, teamStats.memberCount.add(delta.memberCount))
+                    .set(teamStats.ageSum, teamStats.ageSum.add(delta.ageSum))
+                    .where(teamStats.teamId.eq(teamId))
+                    .execute();
+            if (updated == 0) {
+                refresh(em, List.of(teamId)); // 통계 행이 아직 없는 팀 (TeamStats 도입 전 데이터)
+                continue;
+            }
+
+            TeamStats stats = lock(em, teamId);
+            if (delta.teamName != null) {
+                stats.changeTeamName(delta.teamName);
+            }
+            if (delta.hasMemberChange()) {
+                applyAgeRange(qf, stats, delta);
+            }
+        }
+        em.flush(); // 커밋 직전 flush가 이미 끝났으므로 TeamStats 변경분을 직접 내보낸다.
+    }
+
+    private static void applyAgeRange(JPAQueryFactory qf, TeamStats stats, TeamStatsDelta delta) {
+        if (stats.getMemberCount() == 0) {
+            stats.changeAgeRange(null, null);
+            return;
+        }
+        boolean minRemoved = delta.removedMin != null && Objects.equals(delta.removedMin, stats.getAgeMin());
+        boolean maxRemoved = delta.removedMax != null && Objects.equals(delta.removedMax, stats.getAgeMax());
+        if (minRemoved || maxRemoved) {
+            // 현재 min/max 회원이 빠졌을때만 팀을 다시 본다. (idx 없이도 이 팀 회원만 읽는다)
+            Tuple range = qf.select(member.age.min(), member.age.max())
+                    .from(member)
+                    .where(member.team.id.eq(stats.getTeamId()))
+                    .fetchOne();
+            stats.changeAgeRange(range.get(0, Integer.class), range.get(1, Integer.class));
+            return;
+        }
+        stats.changeAgeRange(min(stats.getAgeMin(), delta.addedMin), max(stats.getAgeMax(), delta.addedMax));
+    }
+
+    /**
+     * 행 락을 잡고 최신(커밋된) 값을 다시 읽는다. 벌크 update 로 바뀐 값도 여기서 반영된다.
+     */
+    private static TeamStats lock(EntityManager em, Long teamId) {
+        TeamStats stats = em.find(TeamStats.class, teamId); // 영속성 컨텍스트에 있으면 예전 값일수 있다.
+        em.refresh(stats, LockModeType.PESSIMISTIC_WRITE); // select ... for update
+        return stats;
+    }
+
+    /**
+     * 팀 전체 재계산, 행 락을 먼저 잡는다.
+     */
+    static void refresh(EntityManager em, Collection<Long> teamIds) {
+        for (Long teamId : new TreeSet<>(teamIds)) {
+            TeamStats stats = em.find(TeamStats.class, teamId);
+            if (stats != null) {
+                em.refresh(stats, LockModeType.PESSIMISTIC_WRITE);
+            }
+
+            Tuple row = new JPAQueryFactory(QuerydslConfig.TEMPLATES, em)
+                    .select(team.name, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                    .from(team)
+                    .leftJoin(team.members, member)
+                    .where(team.id.eq(teamId))
+                    .groupBy(team.id, team.name)
+                    .fetchOne();
+
+            if (row == null) { // 삭제된 팀
+                if (stats != null) {
+                    em.remove(stats);
+                }
+                continue;
+            }
+            if (stats == null) {
+                stats = new TeamStats(teamId);
+                em.persist(stats);
+            }
+            // sum은 Long, min/max는 Integer로 돌아온다. (회원이 없으면 null)
+            Number ageSum = row.get(2, Number.class);
+            Number ageMin = row.get(3, Number.class);
+            Number ageMax = row.get(4, Number.class);
+            stats.update(row.get(0, String.class),
+                    row.get(1, Long.class),
+                    ageSum == null ? 0 : ageSum.longValue(),
+                    ageMin == null ? null : ageMin.intValue(),
+                    ageMax == null ? null : ageMax.intValue());
+        }
+    }
+
+    private static Integer min(Integer a, Integer b) {
+        return a == null ? b : b == null ? a : Math.min(a, b);
+    }
+
+    private static Integer max(Integer a, Integer b) {
+        return a == null ? b : b == null ? a : Math.max(a, b);
+    }
+}
@@ -0,0 +1,48 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.QueryModifiers;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+
+import java.util.OptionalLong;
+
+/**
+ * 실행 직전(fetch, fetchCount, stream 등 JPA Query 를 만드는 시점)에 요청의 남은 시간을 timeout 으로 건다.
+ * 쿼리를 조립한 뒤 한참 뒤에 실행하거나, 같은 쿼리로 content 와 count 를 차례로 실행해도
+ * 그 시점의 남은 시간을 쓴다. 이미 걸린 timeout(QueryOptions, 기본값)이 더 짧으면 그대로 둔다.
+ */
+public class DeadlineJPAQuery<T> extends JPAQuery<T> {
+
+    public DeadlineJPAQuery(EntityManager em, JPQLTemplates templates) {
+        super(em, templates);
+    }
+
+    public DeadlineJPAQuery(EntityManager em, JPQLTemplates templates, QueryMetadata metadata) {
+        super(em, templates, metadata);
+    }
+
+    @Override
+    protected Query createQuery(QueryModifiers modifiers, boolean forCount) {
+        Query query = super.createQuery(modifiers, forCount);
+        OptionalLong remainingMs = DeadlineJPAQueryFactory.remainingTimeoutMs(); // 마감이 지났으면 DB에 가지 않는다.
+        if (remainingMs.isPresent()) {
+            org.hibernate.query.Query<?> hibernateQuery = query.unwrap(org.hibernate.query.Query.class);
+            int remainingSeconds = (int) (remainingMs.getAsLong() / 1000); // 초 단위로 올림된 값
+            Integer timeoutSeconds = hibernateQuery.getTimeout();
+            if (timeoutSeconds == null || timeoutSeconds <= 0 || timeoutSeconds > remainingSeconds) {
+                hibernateQuery.setTimeout(remainingSeconds);
+            }
+        }
+        return query;
+    }
+
+    @Override
+    public DeadlineJPAQuery<T> clone(EntityManager entityManager) {
+        DeadlineJPAQuery<T> q = new DeadlineJPAQuery<>(entityManager, getTemplates(), getMetadata().clone());
+        q.clone(this);
+        return q;
+    }
+}
@@ -0,0 +1,56 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.OptionalLong;
+
+/**
+ * 요청 마감(RequestDeadline)을 쿼리 timeout 으로 넘기는 JPAQueryFactory
+ * select/selectFrom/from 은 모두 query() 를 거치므로 여기서 DeadlineJPAQuery 를 만든다.
+ * 남은 시간은 쿼리를 만들때가 아니라 실행할때 계산한다. (DeadlineJPAQuery)
+ * timeout 이 지나면 JDBC 드라이버가 statement 를 cancel 하고 커넥션을 돌려준다.
+ * update/delete/insert 절은 마감을 받지 않는다.
+ */
+public class DeadlineJPAQueryFactory extends JPAQueryFactory {
+
+    private final JPQLTemplates templates;
+    private final EntityManager entityManager;
+
+    public DeadlineJPAQueryFactory(JPQLTemplates templates, EntityManager entityManager) {
+        super(templates, entityManager);
+        this.templates = templates;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public JPAQuery<?> query() {
+        return new DeadlineJPAQuery<Void>(entityManager, templates);
+    }
+
+    /**
+     * JDBC setQueryTimeout 은 초 단위라 남은 시간을 초 단위로 올림한다. (1초 미만이 0 = 무제한 이 되지 않도록)
+     * @throws QueryTimeoutException 마감이 이미 지났을때 - DB에 가지 않는다.
+     */
+    static OptionalLong remainingTimeoutMs() {
+        OptionalLong remaining = RequestDeadline.remainingMs();
+        if (remaining.isEmpty()) {
+            return remaining;
+        }
+        long ms = remaining.getAsLong();
+        if (ms <= 0) {
+            throw new QueryTimeoutException("request deadline exceeded before query execution");
+        }
+        return OptionalLong.of(roundUpToSeconds(ms));
+    }
+
+    /**
+     * JDBC setQueryTimeout 은 초 단위라서 ms 를 다음 초로 올린다. (1500 => 2000)
+     */
+    static long roundUpToSeconds(long ms) {
+        return Math.min((ms + 999) / 1000 * 1000, Integer.MAX_VALUE / 1000 * 1000);
+    }
+}
@@ -0,0 +1,69 @@
+package study.querydslstudy.repository.support;
+
+import jakarta.persistence.OptimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 낙관적 락(@Version) 충돌시 트랜잭션을 새로 열어서 다시 시도한다.
+ * 재시도 간격은 지수적으로 늘리고 jitter를 섞어서 같은 row를 두고 다시 부딪히지 않게 한다.
+ * 주의! 이미 열린 트랜잭션 안에서 호출하면 재시도가 의미 없다. (바깥 트랜잭션이 롤백 마킹된다)
+ */
+@Slf4j
+@Component
+public class OptimisticLockRetry {
+
+    private final TransactionTemplate tx;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticLockRetry(PlatformTransactionManager transactionManager,
+                               @Value("${app.optimistic-retry.max-attempts:5}") int maxAttempts,
+                               @Value("${app.optimistic-retry.initial-backoff-ms:5}") long initialBackoffMs,
+                               @Value("${app.optimistic-retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.tx = new TransactionTemplate(transactionManager);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public <T> T execute(Supplier<T> work) {
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return tx.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.debug("optimistic lock conflict. attempt={}", attempt);
+                sleep(backoff + ThreadLocalRandom.current().nextLong(backoff + 1));
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+    }
+
+    public void run(Runnable work) {
+        execute(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting to retry", e);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Constant;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Operator;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.PathMetadata;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.SubQueryExpression;
+
+import java.util.Set;
+
+/**
+ * 실행 전에 Querydsl Predicate 트리를 돌면서 비용을 어림잡는다.
+ * - 노드 수, 깊이, OR 개수
+ * - 풀스캔이 되는 조건 수 : 인덱스 없는 컬럼 비교, like '%x' / contains / endsWith / 정규식 / 대소문자 무시 startsWith, 서브쿼리
+ *   인덱스 컬럼의 접두어 검색(startsWith, like 'x%')은 인덱스 범위 스캔이므로 풀스캔으로 세지 않는다.
+ * - 모양(Shape) : 지표 태그용으로 몇가지로만 나눈다.
+ * QuerydslPredicateExecutor 처럼 클라이언트가 조건을 만들어 보낼수 있는 곳에서 check()로 막는다.
+ */
+public class PredicateCostAnalyzer {
+
+    private static final int OR_COST = 2;
+    private static final int SCAN_COST = 50;
+
+    private static final Set<Operator> SCAN_OPERATORS = Set.of(
+            Ops.LIKE, Ops.LIKE_IC, Ops.LIKE_ESCAPE, Ops.LIKE_ESCAPE_IC,
+            Ops.STRING_CONTAINS, Ops.STRING_CONTAINS_IC,
+            Ops.ENDS_WITH, Ops.ENDS_WITH_IC,
+            Ops.STARTS_WITH_IC, // lower(컬럼) 이라 인덱스를 못탄다.
+            Ops.MATCHES, Ops.MATCHES_IC);
+
+    // 패턴이 와일드카드로 시작하지 않으면 인덱스를 탈수 있다.
+    private static final Set<Operator> PREFIX_OPERATORS = Set.of(Ops.STARTS_WITH, Ops.LIKE, Ops.LIKE_ESCAPE);
+
+    private final Set<String> indexedProperties;
+    private final int maxCost;
+    private final int maxDepth;
+
+    /**
+     * @param indexedProperties 인덱스가 있는 속성 경로 (루트 제외, 예: "username", "team.id")
+     */
+    public PredicateCostAnalyzer(Set<String> indexedProperties, int maxCost, int maxDepth) {
+        this.indexedProperties = indexedProperties;
+        this.maxCost = maxCost;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * 지표 태그 값이 늘어나지 않도록 정해진 몇가지로만 나눈다. 여러개에 해당하면 비싼 쪽
+     */
+    public enum Shape {
+        NONE,     // 조건 없음
+        INDEX,    // 인덱스 조건만 AND
+        OR,       // 인덱스 조건만, OR 포함
+        SCAN,     // 풀스캔 조건 포함
+        SUBQUERY; // 서브쿼리 포함
+
+        public String tag() {
+            return name().toLowerCase();
+        }
+    }
+
+    public static final class Cost {
+        private int nodes;
+        private int depth;
+        private int orCount;
+        private int scans;
+        private int subQueries;
+
+        public int getNodes() {
+            return nodes;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getOrCount() {
+            return orCount;
+        }
+
+        public int getScans() {
+            return scans;
+        }
+
+        public int getSubQueries() {
+            return subQueries;
+        }
+
+        public int getScore() {
+            return nodes + orCount * OR_COST + scans * SCAN_COST;
+        }
+
+        public Shape getShape() {
+            if (subQueries > 0) {
+                return Shape.SUBQUERY;
+            }
+            if (scans > 0) {
+                return Shape.SCAN;
+            }
+            if (orCount > 0) {
+                return Shape.OR;
+            }
+            return nodes == 0 ? Shape.NONE : Shape.INDEX;
+        }
+
+        @Override
+        public String toString() {
+            return "Cost(score=" + getScore() + ", shape=" + getShape() + ", nodes=" + nodes + ", depth=" + depth
+                    + ", or=" + orCount + ", scans=" + scans + ")";
+        }
+    }
+
+    public Cost analyze(Predicate predicate) {
+        Cost cost = new Cost();
+        if (predicate != null) {
+            walk(predicate, 1, cost);
+        }
+        return cost;
+    }
+
+    /**
+     * @throws IllegalArgumentException 비용이나 깊이가 한도를 넘을때
+     */
+    public Cost check(Predicate predicate) {
+        return check(analyze(predicate));
+    }
+
+    /**
+     * @throws IllegalArgumentException 비용이나 깊이가 한도를 넘을때
+     */
+    public Cost check(Cost cost) {
+        if (cost.getScore() > maxCost || cost.getDepth() > maxDepth) {
+            throw new IllegalArgumentException("Predicate is too expensive: " + cost
+                    + " (maxCost=" + maxCost + ", maxDepth=" + maxDepth + ")");
+        }
+        return cost;
+    }
+
+    private void walk(Expression<?> expr, int depth, Cost cost) {
+        if (expr instanceof BooleanBuilder builder) {
+            expr = builder.getValue();
+            if (expr == null) {
+                return;
+            }
+        }
+
+        cost.nodes++;
+        cost.depth = Math.max(cost.depth, depth);
+
+        if (expr instanceof SubQueryExpression) {
+            cost.scans++;
+            cost.subQueries++;
+        } else if (expr instanceof Operation<?> operation) {
+            Operator operator = operation.getOperator();
+            if (operator == Ops.OR) {
+                cost.orCount++;
+            }
+            if (!isIndexedPrefixMatch(operation)
+                    && (SCAN_OPERATORS.contains(operator) || comparesUnindexedPath(operation))) {
+                cost.scans++;
+            }
+            for (Expression<?> arg : operation.getArgs()) {
+                walk(arg, depth + 1, cost);
+            }
+        }
+    }
+
+    // username.startsWith("ab"), username.like("ab%") => 인덱스 범위 스캔
+    private boolean isIndexedPrefixMatch(Operation<?> operation) {
+        if (!PREFIX_OPERATORS.contains(operation.getOperator())
+                || !(operation.getArg(0) instanceof Path<?> path)
+                || !indexedProperties.contains(propertyPath(path))
+                || !(operation.getArg(1) instanceof Constant<?> constant)
+                || !(constant.getConstant() instanceof String pattern)
+                || pattern.isEmpty()) {
+            return false;
+        }
+        if (operation.getOperator() == Ops.STARTS_WITH) {
+            return true; // 값은 escape 되어 들어간다.
+        }
+        char first = pattern.charAt(0);
+        return first != '%' && first != '_';
+    }
+
+    private boolean comparesUnindexedPath(Operation<?> operation) {
+        Operator operator = operation.getOperator();
+        if (operator == Ops.AND || operator == Ops.OR || operator == Ops.NOT) {
+            return false;
+        }
+        Expression<?> first = operation.getArgs().isEmpty() ? null : operation.getArg(0);
+        return first instanceof Path<?> path && !indexedProperties.contains(propertyPath(path));
+    }
+
+    // member.team.id => "team.id"
+    private String propertyPath(Path<?> path) {
+        PathMetadata metadata = path.getMetadata();
+        if (metadata.isRoot()) {
+            return "";
+        }
+        String parent = propertyPath(metadata.getParent());
+        return parent.isEmpty() ? metadata.getName() : parent + "." + metadata.getName();
+    }
+}
@@ -0,0 +1,103 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+
+/**
+ * 쿼리별 Hibernate 옵션 (JPA 힌트로 전달한다)
+ * - cacheable / cacheRegion : 쿼리 캐시. hibernate.cache.use_query_cache 와 캐시 구현체(region factory)가 설정되어 있어야 동작한다.
+ * - fetchSize : JDBC가 한번에 가져올 row 수
+ * - readOnly : 조회한 엔티티의 스냅샷을 만들지 않는다. (dirty checking 생략)
+ *   주의! 결과 엔티티를 같은 트랜잭션에서 수정해도 update 가 나가지 않는다. 수정하지 않는 화면 조회에만 쓴다.
+ * - timeoutMs : DB에서 쿼리를 끊는 시간. 넘으면 QueryTimeoutException
+ *   JDBC timeout 은 초 단위라 다음 초로 올린다. 요청 마감이 더 짧으면 실행할때 요청 마감으로 줄어든다. (DeadlineJPAQuery)
+ * - comment : SQL 앞에 붙는 주석. hibernate.use_sql_comments=true 일때 보인다. (슬로우 쿼리 로그에서 어디서 나간 쿼리인지 찾는 용도)
+ *
+ * <pre>
+ * QueryOptions.none()
+ *         .fetchSize(100)
+ *         .timeoutMs(3000)
+ *         .comment("MemberTestRepository.searchPageByApplyPage");
+ * </pre>
+ */
+public class QueryOptions {
+
+    private static final QueryOptions NONE = new QueryOptions(false, null, null, false, null, null);
+
+    private final boolean cacheable;
+    private final String cacheRegion;
+    private final Integer fetchSize;
+    private final boolean readOnly;
+    private final Integer timeoutMs;
+    private final String comment;
+
+    private QueryOptions(boolean cacheable, String cacheRegion, Integer fetchSize,
+                         boolean readOnly, Integer timeoutMs, String comment) {
+        this.cacheable = cacheable;
+        this.cacheRegion = cacheRegion;
+        this.fetchSize = fetchSize;
+        this.readOnly = readOnly;
+        this.timeoutMs = timeoutMs;
+        this.comment = comment;
+    }
+
+    public static QueryOptions none() {
+        return NONE;
+    }
+
+    public QueryOptions cacheable(String region) {
+        return new QueryOptions(true, region, fetchSize, readOnly, timeoutMs, comment);
+    }
+
+    public QueryOptions fetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("fetchSize must be positive: " + fetchSize);
+        }
+        return new QueryOptions(cacheable, cacheRegion, fetchSize, readOnly, timeoutMs, comment);
+    }
+
+    /**
+     * 이 쿼리로 읽은 엔티티는 변경 감지가 되지 않는다. (영속성 컨텍스트에 읽기 전용으로 올라간다)
+     */
+    public QueryOptions readOnly() {
+        return new QueryOptions(cacheable, cacheRegion, fetchSize, true, timeoutMs, comment);
+    }
+
+    public QueryOptions timeoutMs(int timeoutMs) {
+        if (timeoutMs <= 0) {
+            throw new IllegalArgumentException("timeoutMs must be positive: " + timeoutMs);
+        }
+        return new QueryOptions(cacheable, cacheRegion, fetchSize, readOnly, timeoutMs, comment);
+    }
+
+    public QueryOptions comment(String comment) {
+        return new QueryOptions(cacheable, cacheRegion, fetchSize, readOnly, timeoutMs, comment);
+    }
+
+    /**
+     * 설정된 옵션만 힌트로 건다. 힌트는 fetch()와 fetchCount() 양쪽에 적용된다.
+     */
+    public <T> JPAQuery<T> applyTo(JPAQuery<T> query) {
+        if (cacheable) {
+            query.setHint(HibernateHints.HINT_CACHEABLE, true);
+            if (cacheRegion != null) {
+                query.setHint(HibernateHints.HINT_CACHE_REGION, cacheRegion);
+            }
+        }
+        if (fetchSize != null) {
+            query.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize);
+        }
+        if (readOnly) {
+            query.setHint(HibernateHints.HINT_READ_ONLY, true);
+        }
+        if (timeoutMs != null) {
+            // ms 를 그대로 넘기면 Hibernate 가 초로 반올림한다. (1200ms => 1초, 400ms => 0 = 무제한)
+            query.setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, (int) DeadlineJPAQueryFactory.roundUpToSeconds(timeoutMs));
+        }
+        if (comment != null) {
+            query.setHint(HibernateHints.HINT_COMMENT, comment);
+        }
+        return query;
+    }
+}
@@ -47,7 +47,11 @@ public abstract class Querydsl4RepositorySupport {
         this.entityManager = entityManager;
         this.querydsl = new Querydsl(entityManager, new
                 PathBuilder<>(path.getType(), path.getMetadata()));
-        this.queryFactory = new JPAQueryFactory(entityManager);
+    }
+    // 리포지토리마다 만들지 않고 QuerydslConfig 의 공유 팩토리를 쓴다.
+    @Autowired
+    public void setQueryFactory(JPAQueryFactory queryFactory) {
+        this.queryFactory = queryFactory;
     }
     @PostConstruct
     public void validate() {
@@ -64,6 +68,30 @@ public abstract class Querydsl4RepositorySupport {
     protected EntityManager getEntityManager() {
         return entityManager;
     }
+    /**
+     * 정렬을 허용할 속성, 기본은 null => 스프링 Querydsl.applyPagination 처럼 어떤 속성이든 정렬한다.
+     * 인덱스가 없는 컬럼 정렬을 막으려면 오버라이드한다.
+     */
+    protected SortPolicy getSortPolicy() {
+        return null;
+    }
+    protected <T> JPAQuery<T> paginate(Pageable pageable, JPAQuery<T> query) {
+        SortPolicy sortPolicy = getSortPolicy();
+        if (sortPolicy == null) {
+            return (JPAQuery<T>) getQuerydsl().applyPagination(pageable, query);
+        }
+        if (pageable.isPaged()) {
+            query.offset(pageable.getOffset())
+                    .limit(pageable.getPageSize());
+        }
+        return query.orderBy(sortPolicy.toOrderSpecifiers(pageable.getSort()));
+    }
+    /**
+     * 쿼리별 Hibernate 옵션(쿼리 캐시, fetch size, read-only, timeout, comment)을 건다.
+     */
+    protected <T> JPAQuery<T> withOptions(JPAQuery<T> query, QueryOptions options) {
+        return options.applyTo(query);
+    }
     protected <T> JPAQuery<T> select(Expression<T> expr) {
         return getQueryFactory().select(expr);
     }
@@ -73,8 +101,7 @@ public abstract class Querydsl4RepositorySupport {
     protected <T> Page<T> applyPagination(Pageable pageable,
                                           Function<JPAQueryFactory, JPAQuery> contentQuery) {
         JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaQuery).fetch();
+        List<T> content = paginate(pageable, jpaQuery).fetch();
         return PageableExecutionUtils.getPage(content, pageable,
                 jpaQuery::fetchCount);
     }
@@ -82,8 +109,7 @@ public abstract class Querydsl4RepositorySupport {
                                           Function<JPAQueryFactory, JPAQuery> contentQuery, Function<JPAQueryFactory,
             JPAQuery> countQuery) {
         JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-        List<T> content = getQuerydsl().applyPagination(pageable,
-                jpaContentQuery).fetch();
+        List<T> content = paginate(pageable, jpaContentQuery).fetch();
         JPAQuery countResult = countQuery.apply(getQueryFactory());
         return PageableExecutionUtils.getPage(content, pageable,
                 countResult::fetchCount);
@@ -0,0 +1,35 @@
+package study.querydslstudy.repository.support;
+
+import java.util.OptionalLong;
+
+/**
+ * 현재 스레드(HTTP 요청)의 마감 시각
+ * RequestDeadlineFilter 가 요청 시작시 start, 끝나면 clear 한다.
+ * 요청 밖(스케줄러, write-behind, warmup)에서는 마감이 없다.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<Long> DEADLINE_NANOS = new ThreadLocal<>();
+
+    private RequestDeadline() {
+    }
+
+    public static void start(long timeoutMs) {
+        DEADLINE_NANOS.set(System.nanoTime() + timeoutMs * 1_000_000L);
+    }
+
+    public static void clear() {
+        DEADLINE_NANOS.remove();
+    }
+
+    /**
+     * @return 남은 시간(ms), 마감이 없으면 empty. 이미 지났으면 0 이하
+     */
+    public static OptionalLong remainingMs() {
+        Long deadline = DEADLINE_NANOS.get();
+        if (deadline == null) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of((deadline - System.nanoTime()) / 1_000_000L);
+    }
+}
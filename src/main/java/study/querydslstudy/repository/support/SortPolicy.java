@@ -0,0 +1,74 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 리포지토리별 정렬 정책
+ * 클라이언트가 보낸 Sort 속성 중 허용(인덱스가 있는 컬럼에 매핑)된 것만 ORDER BY 로 바꾸고 나머지는 거절한다.
+ * 페이지 경계가 흔들리지 않도록 항상 tiebreaker(보통 id)를 마지막 정렬 조건으로 붙인다.
+ *
+ * <pre>
+ * SortPolicy.of("id", member.id)
+ *         .allow("username", member.username)
+ *         .allow("age", member.age);
+ * </pre>
+ */
+public class SortPolicy {
+
+    private final String tiebreakerProperty;
+    private final ComparableExpressionBase<?> tiebreaker;
+    private final Map<String, ComparableExpressionBase<?>> sortable;
+
+    private SortPolicy(String tiebreakerProperty, ComparableExpressionBase<?> tiebreaker,
+                       Map<String, ComparableExpressionBase<?>> sortable) {
+        this.tiebreakerProperty = tiebreakerProperty;
+        this.tiebreaker = tiebreaker;
+        this.sortable = Collections.unmodifiableMap(sortable);
+    }
+
+    public static SortPolicy of(String tiebreakerProperty, ComparableExpressionBase<?> tiebreaker) {
+        Map<String, ComparableExpressionBase<?>> sortable = new LinkedHashMap<>();
+        sortable.put(tiebreakerProperty, tiebreaker);
+        return new SortPolicy(tiebreakerProperty, tiebreaker, sortable);
+    }
+
+    /**
+     * @return property 정렬을 허용한 새 정책
+     */
+    public SortPolicy allow(String property, ComparableExpressionBase<?> path) {
+        Map<String, ComparableExpressionBase<?>> copy = new LinkedHashMap<>(sortable);
+        copy.put(property, path);
+        return new SortPolicy(tiebreakerProperty, tiebreaker, copy);
+    }
+
+    /**
+     * @throws IllegalArgumentException 허용되지 않은 정렬 속성
+     */
+    public OrderSpecifier<?>[] toOrderSpecifiers(Sort sort) {
+        List<OrderSpecifier<?>> orders = new ArrayList<>();
+        boolean hasTiebreaker = false;
+
+        for (Sort.Order order : sort) {
+            ComparableExpressionBase<?> path = sortable.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("Sort property is not allowed: " + order.getProperty()
+                        + " (allowed: " + sortable.keySet() + ")");
+            }
+            orders.add(order.isAscending() ? path.asc() : path.desc());
+            hasTiebreaker |= order.getProperty().equals(tiebreakerProperty);
+        }
+
+        if (!hasTiebreaker) {
+            orders.add(tiebreaker.asc());
+        }
+        return orders.toArray(OrderSpecifier[]::new);
+    }
+}
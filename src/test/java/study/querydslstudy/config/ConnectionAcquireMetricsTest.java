@@ -0,0 +1,65 @@
+package study.querydslstudy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.repository.MemberJpaRepository;
+import study.querydslstudy.repository.MemberRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트에 @Transactional 을 붙이면 테스트가 먼저 커넥션을 잡으므로 붙이지 않는다.
+ * 리포지토리 메서드의 @Transactional 이 커넥션을 얻어야 메서드 이름이 태그로 남는다.
+ */
+@SpringBootTest
+class ConnectionAcquireMetricsTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void acquireTimerTaggedWithRepositoryMethod() throws Exception {
+        long before = count();
+
+        memberJpaRepository.findAllByIds(List.of(-1L));
+
+        assertThat(count()).isGreaterThan(before);
+    }
+
+    /**
+     * 스프링 데이터 리포지토리의 커스텀 메서드는 프록시와 Impl 두번이 아니라 한번만 잰다.
+     */
+    @Test
+    public void customRepositoryMethodTimedOnce() throws Exception {
+        long before = invocations();
+
+        memberRepository.searchAfter(new MemberSearchCondition(), null, 1);
+
+        assertThat(invocations()).isEqualTo(before + 1);
+        assertThat(registry.find("repository.invocation").timers())
+                .noneMatch(timer -> timer.getId().getTag("method").startsWith("MemberRepositoryImpl."));
+    }
+
+    private long invocations() {
+        return registry.find("repository.invocation").timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+
+    private long count() {
+        Timer timer = registry.find("repository.connection.acquire")
+                .tag("method", "MemberJpaRepository.findAllByIds")
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
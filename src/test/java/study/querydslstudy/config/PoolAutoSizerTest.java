@@ -0,0 +1,172 @@
+package study.querydslstudy.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 스프링 없이 풀 MXBean 을 흉내내서 sample() 의 늘리기/줄이기 규칙을 본다.
+ * HikariDataSource 는 시작하지 않으므로 maximumPoolSize/minimumIdle 값만 바뀐다.
+ */
+class PoolAutoSizerTest {
+
+    StubPool pool;
+    StubDataSource dataSource;
+
+    @BeforeEach
+    public void before() {
+        pool = new StubPool();
+        dataSource = new StubDataSource(pool);
+        dataSource.setMaximumPoolSize(10);
+        dataSource.setMinimumIdle(10);
+    }
+
+    @Test
+    public void growAfterConsecutivePendingSamples() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 5, 13, 2, 3, 30);
+        pool.active = 10;
+        pool.waiting = 1;
+
+        sizer.sample();
+        sizer.sample();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10); // 아직 2번
+
+        sizer.sample();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(12);
+
+        sizer.sample();
+        sizer.sample();
+        sizer.sample();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(13); // max-size 까지만
+    }
+
+    @Test
+    public void pendingStreakResets() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 5, 30, 2, 3, 30);
+        pool.active = 10;
+
+        pool.waiting = 1;
+        sizer.sample();
+        sizer.sample();
+        pool.waiting = 0;
+        sizer.sample(); // 연속이 끊긴다.
+        pool.waiting = 1;
+        sizer.sample();
+        sizer.sample();
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void shrinkWhenMostlyIdle() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 5, 30, 2, 3, 4);
+        pool.active = 2;
+
+        for (int i = 0; i < 3; i++) {
+            sizer.sample();
+        }
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+
+        sizer.sample();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(8);
+        assertThat(dataSource.getMinimumIdle()).isEqualTo(8); // 최대 크기를 넘지 않게 같이 줄인다.
+
+        for (int i = 0; i < 4 * 5; i++) {
+            sizer.sample();
+        }
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(5); // min-size 까지만
+    }
+
+    @Test
+    public void shrinkKeepsPeakActive() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 2, 30, 8, 3, 3);
+
+        pool.active = 5; // 절반 이하지만 관측 구간 최대값
+        sizer.sample();
+        pool.active = 1;
+        sizer.sample();
+        sizer.sample();
+
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(6); // 10 - 8 = 2 가 아니라 peak + 1
+    }
+
+    @Test
+    public void busyPoolDoesNotShrink() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 5, 30, 2, 3, 2);
+        pool.active = 6; // 절반 넘게 사용중
+
+        for (int i = 0; i < 10; i++) {
+            sizer.sample();
+        }
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void notStartedPool() throws Exception {
+        PoolAutoSizer sizer = new PoolAutoSizer(dataSource, 5, 30, 2, 1, 1);
+        dataSource.pool = null; // 첫 커넥션 전
+
+        sizer.sample();
+        assertThat(dataSource.getMaximumPoolSize()).isEqualTo(10);
+    }
+
+    @Test
+    public void invalidRange() throws Exception {
+        assertThatThrownBy(() -> new PoolAutoSizer(dataSource, 10, 5, 2, 3, 30))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    static class StubDataSource extends HikariDataSource {
+        HikariPoolMXBean pool;
+
+        StubDataSource(HikariPoolMXBean pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public HikariPoolMXBean getHikariPoolMXBean() {
+            return pool;
+        }
+    }
+
+    static class StubPool implements HikariPoolMXBean {
+        int active;
+        int waiting;
+
+        @Override
+        public int getIdleConnections() {
+            return 0;
+        }
+
+        @Override
+        public int getActiveConnections() {
+            return active;
+        }
+
+        @Override
+        public int getTotalConnections() {
+            return active;
+        }
+
+        @Override
+        public int getThreadsAwaitingConnection() {
+            return waiting;
+        }
+
+        @Override
+        public void softEvictConnections() {
+        }
+
+        @Override
+        public void suspendPool() {
+        }
+
+        @Override
+        public void resumePool() {
+        }
+    }
+}
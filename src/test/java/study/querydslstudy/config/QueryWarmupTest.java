@@ -0,0 +1,32 @@
+package study.querydslstudy.config;
+
+import org.junit.jupiter.api.Test;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.repository.MemberPredicates;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryWarmupTest {
+
+    /**
+     * warm-up 조건은 서로 다른 where 절 모양을 하나씩 만들어야 한다.
+     */
+    @Test
+    public void everyConditionShape() throws Exception {
+        List<MemberSearchCondition> conditions = QueryWarmup.conditions();
+
+        List<String> shapes = conditions.stream()
+                .map(MemberSearchCondition::normalize)
+                .map(MemberPredicates::of)
+                .map(Objects::toString)
+                .distinct()
+                .toList();
+
+        assertThat(conditions).hasSize(80);
+        assertThat(shapes).hasSize(80);
+        assertThat(conditions).noneMatch(MemberSearchCondition::isUnsatisfiable); // DB까지 가야 warm-up 이 된다.
+    }
+}
@@ -0,0 +1,36 @@
+package study.querydslstudy.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.repository.MemberJpaRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MeterRegistry registry;
+
+    @Test
+    public void invocationTimer() throws Exception {
+        memberJpaRepository.search(new MemberSearchCondition());
+        memberJpaRepository.search(new MemberSearchCondition());
+
+        Timer timer = registry.find("repository.invocation")
+                .tag("method", "MemberJpaRepository.search")
+                .tag("outcome", "success")
+                .timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(2);
+        assertThat(RepositoryMetricsAspect.currentMethod()).isEqualTo("none"); // 끝나면 비운다
+    }
+}
@@ -0,0 +1,78 @@
+package study.querydslstudy.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 실제 조회 API 를 Accept: application/x-jackson-smile 로 불러서 WebConfig 의 컨버터를 거치는지 본다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class SmileSerializationTest {
+
+    static final MediaType SMILE = MediaType.valueOf("application/x-jackson-smile");
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Test
+    public void smileResponse() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+
+        MvcResult json = mvc.perform(get("/v1/members").accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult smile = mvc.perform(get("/v1/members").accept(SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(SMILE))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+
+        byte[] jsonBytes = json.getResponse().getContentAsByteArray();
+        byte[] smileBytes = smile.getResponse().getContentAsByteArray();
+        System.out.println("json = " + jsonBytes.length + " bytes, smile = " + smileBytes.length + " bytes");
+        assertThat(smileBytes.length).isLessThan(jsonBytes.length);
+
+        MemberTeamDto[] fromJson = new ObjectMapper().readValue(jsonBytes, MemberTeamDto[].class);
+        MemberTeamDto[] fromSmile = new ObjectMapper(new SmileFactory()).readValue(smileBytes, MemberTeamDto[].class);
+        assertThat(fromSmile).hasSize(100).containsExactly(fromJson);
+
+        // 같은 조건이라도 표현이 다르면 ETag 가 달라야 JSON 캐시로 Smile 요청에 304 를 주지 않는다.
+        String jsonEtag = json.getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(smile.getResponse().getHeader(HttpHeaders.ETAG)).isNotEqualTo(jsonEtag);
+        mvc.perform(get("/v1/members").accept(SMILE).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk());
+    }
+}
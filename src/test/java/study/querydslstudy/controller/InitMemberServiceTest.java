@@ -0,0 +1,150 @@
+package study.querydslstudy.controller;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.controller.InitMember.InitMemberService;
+import study.querydslstudy.controller.InitMemberProperties.AgeDistribution;
+import study.querydslstudy.entity.TeamStats;
+import study.querydslstudy.repository.TeamStatsUpdater;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * InitMemberService 가 실제로 넣는 데이터를 본다. (InitMember 는 local/loadtest/perf 프로파일에서만 빈이므로 직접 만든다)
+ * 배치마다 커밋하므로 @Transactional 을 붙이지 않고, 끝나면 넣은 데이터를 지운다.
+ */
+@SpringBootTest
+class InitMemberServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsUpdater teamStatsUpdater;
+
+    List<Object> events = new CopyOnWriteArrayList<>();
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        deleteAll();
+    }
+
+    @Test
+    public void parallelInsert() throws Exception {
+        InitMemberProperties properties = properties(4);
+        service(properties).init();
+
+        Long members = tx.execute(status -> em.createQuery("select count(m) from Member m", Long.class).getSingleResult());
+        Long distinctIds = tx.execute(status -> em.createQuery("select count(distinct m.id) from Member m", Long.class).getSingleResult());
+        assertThat(members).isEqualTo(properties.getMembers());
+        assertThat(distinctIds).isEqualTo(properties.getMembers());
+
+        // 회원 insert 는 집계하지 않고 끝난 뒤 refreshAll() 로 한번에 맞춘다.
+        List<Object[]> counts = tx.execute(status -> em.createQuery(
+                "select t.id, count(m), sum(m.age) from Member m join m.team t group by t.id", Object[].class).getResultList());
+        assertThat(counts).hasSize(properties.getTeams());
+        for (Object[] count : counts) {
+            TeamStats stats = tx.execute(status -> em.find(TeamStats.class, count[0]));
+            assertThat(stats.getMemberCount()).isEqualTo(count[1]);
+            assertThat(stats.getAgeSum()).isEqualTo(count[2]);
+        }
+
+        // 다 넣은 뒤에 한번 알린다. (QueryWarmup 이 기다린다)
+        assertThat(events).containsExactly(new MemberSeededEvent(properties.getMembers(), properties.getTeams()));
+    }
+
+    @Test
+    public void sameDataRegardlessOfThreads() throws Exception {
+        service(properties(1)).init();
+        List<String> single = snapshot();
+        deleteAll();
+
+        service(properties(4)).init();
+        List<String> parallel = snapshot();
+
+        assertThat(single).hasSize(2000);
+        assertThat(parallel).isEqualTo(single);
+    }
+
+    @Test
+    public void asyncInitDoesNotBlockStartup() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+        InitMemberProperties properties = properties(1);
+        InitMemberService slowService = new InitMemberService(em, properties, transactionManager, teamStatsUpdater, events::add) {
+            @Override
+            public void init() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                finished.countDown();
+            }
+        };
+
+        new InitMember(slowService, properties).init(); // seeding 이 끝나지 않았는데 돌아온다.
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(finished.getCount()).isEqualTo(1);
+        release.countDown();
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private InitMemberService service(InitMemberProperties properties) {
+        return new InitMemberService(em, properties, transactionManager, teamStatsUpdater, events::add);
+    }
+
+    private InitMemberProperties properties(int threads) {
+        InitMemberProperties properties = new InitMemberProperties();
+        properties.setMembers(2000);
+        properties.setTeams(3);
+        properties.setTeamSkew(1);
+        properties.setAgeDistribution(AgeDistribution.UNIFORM);
+        properties.setBatchSize(100);
+        properties.setThreads(threads);
+        return properties;
+    }
+
+    // 팀 id 는 실행마다 달라지므로 팀 이름으로 비교한다.
+    private List<String> snapshot() {
+        return tx.execute(status -> em.createQuery(
+                        "select m.username, m.age, t.name from Member m join m.team t", Object[].class)
+                .getResultStream()
+                .map(row -> row[0] + "/" + row[1] + "/" + row[2])
+                .sorted()
+                .toList());
+    }
+
+    private void deleteAll() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+}
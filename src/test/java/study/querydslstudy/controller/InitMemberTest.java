@@ -0,0 +1,41 @@
+package study.querydslstudy.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydslstudy.controller.InitMember.InitMemberService.*;
+
+class InitMemberTest {
+
+    @Test
+    public void defaultIsOriginalData() throws Exception {
+        // 짝수 teamA, 홀수 teamB, username = member + i
+        assertThat(teamWeights(2, 0)).isNull();
+        assertThat(teamName(teamIndex(0, 2, null, null))).isEqualTo("teamA");
+        assertThat(teamName(teamIndex(1, 2, null, null))).isEqualTo("teamB");
+        assertThat(username(99, 0)).isEqualTo("member99");
+    }
+
+    @Test
+    public void skewedTeams() throws Exception {
+        double[] weights = teamWeights(3, 1);
+        SplittableRandom random = new SplittableRandom(42);
+        int[] counts = new int[3];
+        for (int i = 0; i < 60_000; i++) {
+            counts[teamIndex(i, 3, weights, random)]++;
+        }
+
+        // 1 : 1/2 : 1/3
+        assertThat(counts[0]).isGreaterThan(counts[1]);
+        assertThat(counts[1]).isGreaterThan(counts[2]);
+        assertThat(counts[0] / (double) counts[2]).isBetween(2.7, 3.3);
+    }
+
+    @Test
+    public void usernameCardinality() throws Exception {
+        assertThat(username(10, 3)).isEqualTo("member1");
+        assertThat(teamName(26)).isEqualTo("team26");
+    }
+}
@@ -0,0 +1,132 @@
+package study.querydslstudy.controller;
+
+import jakarta.persistence.EntityManager;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+import study.querydslstudy.config.RequestDeadlineFilter;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+import study.querydslstudy.repository.DataVersion;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    @Autowired
+    WebApplicationContext context;
+
+    @Autowired
+    RequestDeadlineFilter requestDeadlineFilter;
+
+    @Test
+    public void batch() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member m1 = new Member("m1", 15, teamA);
+        em.persist(m1);
+        em.flush();
+
+        mvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + m1.getId() + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$." + m1.getId() + ".username").value("m1"));
+    }
+
+    @Test
+    public void batchTooManyIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, MemberController.MAX_BATCH_IDS + 1)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(ids))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void etag() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.flush();
+
+        MvcResult first = mvc.perform(get("/v1/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 같은 조건, 같은 버전 => 304
+        mvc.perform(get("/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // 조건이 다르면 ETag 도 다르다.
+        mvc.perform(get("/v1/members").param("teamName", "teamB").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+
+        // 커밋으로 버전이 오르면 다시 읽는다.
+        dataVersion.bump();
+        mvc.perform(get("/v1/members").param("teamName", "teamA").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+    }
+
+    /**
+     * 요청 마감이 쿼리 전에 지나면 쿼리를 보내지 않고 503
+     * 마감 필터 다음에 느린 필터를 끼워서 컨트롤러에 오기 전에 마감을 넘긴다.
+     */
+    @Test
+    public void requestDeadlineExceeded() throws Exception {
+        Filter slowFilter = (request, response, chain) -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            chain.doFilter(request, response);
+        };
+        MockMvc slowMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(requestDeadlineFilter, slowFilter)
+                .build();
+
+        slowMvc.perform(get("/v1/members").header(RequestDeadlineFilter.TIMEOUT_HEADER, "10"))
+                .andExpect(status().isServiceUnavailable());
+
+        // 마감이 넉넉하면 정상 응답
+        slowMvc.perform(get("/v1/members").header(RequestDeadlineFilter.TIMEOUT_HEADER, "5000"))
+                .andExpect(status().isOk());
+    }
+}
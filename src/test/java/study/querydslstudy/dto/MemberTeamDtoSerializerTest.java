@@ -0,0 +1,92 @@
+package study.querydslstudy.dto;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberTeamDtoSerializerTest {
+
+    static final int RUNS = 5;
+
+    ObjectMapper bean = new ObjectMapper();
+    ObjectMapper custom = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(new MemberTeamDtoSerializer()));
+
+    /**
+     * 직접 만든 직렬화기는 기본 BeanSerializer 와 같은 JSON을 만들어야 한다.
+     */
+    @Test
+    public void sameJsonAsBeanSerializer() throws Exception {
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, 1L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, null, null));
+
+        assertThat(bean.readTree(custom.writeValueAsString(content)))
+                .isEqualTo(bean.readTree(bean.writeValueAsString(content)));
+    }
+
+    /**
+     * 직렬화기는 손으로 쓴 것이라 MemberTeamDto 에 필드가 추가되면 같이 고쳐야 한다. => 빠뜨리면 여기서 실패한다.
+     */
+    @Test
+    public void writesEveryDtoField() throws Exception {
+        List<String> dtoFields = Arrays.stream(MemberTeamDto.class.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .map(Field::getName)
+                .toList();
+
+        List<String> written = new ArrayList<>();
+        custom.readTree(custom.writeValueAsString(new MemberTeamDto())).fieldNames().forEachRemaining(written::add);
+
+        assertThat(written).containsExactlyInAnyOrderElementsOf(dtoFields);
+    }
+
+    /**
+     * 1000건 페이지 직렬화 시간, 직접 만든 직렬화기가 BeanSerializer 보다 느리면 안된다.
+     * 시간 측정이라 perf 로만 돈다. (./gradlew perfTest)
+     */
+    @Tag("perf")
+    @Test
+    public void throughput() throws Exception {
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            content.add(new MemberTeamDto((long) i, "member" + i, i, 1L, "teamA"));
+        }
+        PagedResponse<MemberTeamDto> page = new PagedResponse<>(content, 0, 1000, 100_000);
+
+        long beanUs = measure(bean, page);
+        long customUs = measure(custom, page);
+        System.out.println("bean = " + beanUs + "us, custom = " + customUs + "us");
+
+        assertThat(customUs).isLessThanOrEqualTo(beanUs);
+    }
+
+    /**
+     * warm-up 뒤 RUNS 번 잰 중간값 (1회 = 200번 직렬화 평균)
+     */
+    private long measure(ObjectMapper mapper, Object value) throws Exception {
+        for (int i = 0; i < 1000; i++) {
+            mapper.writeValueAsBytes(value);
+        }
+        long[] elapsed = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            int rounds = 200;
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                mapper.writeValueAsBytes(value);
+            }
+            elapsed[run] = (System.nanoTime() - start) / rounds / 1000;
+        }
+        Arrays.sort(elapsed);
+        return elapsed[RUNS / 2];
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydslstudy.entity;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드가 블럭을 여러번 다시 채울 만큼 id 를 뽑아도 겹치거나 빠지는 id 가 없어야 한다.
+ * 세션은 스레드마다 따로 쓰고, generator 는 회원 엔티티의 것 하나를 같이 쓴다.
+ */
+@SpringBootTest
+class BlockSequenceGeneratorTest {
+
+    static final int THREADS = 8;
+    static final int IDS_PER_THREAD = 2_500; // 8 * 2,500 = 블럭(1,000) 20개
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    public void uniqueAcrossThreadsAndRefills() throws Exception {
+        SessionFactoryImplementor sf = emf.unwrap(SessionFactoryImplementor.class);
+        IdentifierGenerator generator = sf.getMappingMetamodel()
+                .getEntityDescriptor(Member.class)
+                .getIdentifierGenerator();
+        assertThat(generator).isInstanceOf(BlockSequenceGenerator.class);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                List<Long> ids = new ArrayList<>(IDS_PER_THREAD);
+                try (Session session = sf.openSession()) {
+                    SharedSessionContractImplementor s = session.unwrap(SharedSessionContractImplementor.class);
+                    start.await(); // 모든 스레드가 동시에 뽑기 시작한다.
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        ids.add((Long) generator.generate(s, null));
+                    }
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+
+        List<Long> all = new ArrayList<>();
+        for (Future<List<Long>> future : futures) {
+            all.addAll(future.get());
+        }
+        executor.shutdown();
+
+        Set<Long> unique = new HashSet<>(all);
+        assertThat(unique).hasSize(THREADS * IDS_PER_THREAD); // 중복 없음
+        // 시퀀스를 이 generator 만 쓰므로 뽑은 id 는 빈칸 없이 이어진다. (예약한 블럭을 버리지 않는다)
+        assertThat(Collections.max(all) - Collections.min(all) + 1).isEqualTo(THREADS * IDS_PER_THREAD);
+    }
+}
@@ -0,0 +1,80 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋이 필요하므로 @Transactional 을 붙이지 않고, 끝나면 만든 데이터를 지운다.
+ */
+@SpringBootTest
+class DataVersionTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    DataVersion dataVersion;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate tx;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void bumpOncePerCommit() throws Exception {
+        long before = dataVersion.getVersion();
+
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i, teamA));
+            }
+            em.flush();
+            assertThat(dataVersion.getVersion()).isEqualTo(before); // 커밋 전에는 그대로
+        });
+
+        assertThat(dataVersion.getVersion()).isEqualTo(before + 1); // 엔티티 11개지만 트랜잭션 하나
+    }
+
+    @Test
+    public void noBumpOnRollback() throws Exception {
+        long before = dataVersion.getVersion();
+
+        tx.executeWithoutResult(status -> {
+            em.persist(new Team("teamA"));
+            em.flush();
+            status.setRollbackOnly();
+        });
+
+        assertThat(dataVersion.getVersion()).isEqualTo(before);
+
+        tx.executeWithoutResult(status -> em.persist(new Team("teamB")));
+        assertThat(dataVersion.getVersion()).isEqualTo(before + 1); // 롤백된 세션이 등록을 남기지 않는다.
+    }
+}
@@ -0,0 +1,175 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.OptimisticLockException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+import study.querydslstudy.repository.support.OptimisticLockRetry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 여러 스레드가 같은 회원들을 동시에 수정한다.
+ * 커밋이 필요하므로 @Transactional 을 붙이지 않고, 끝나면 만든 데이터를 지운다.
+ */
+@SpringBootTest
+class MemberConcurrencyTest {
+
+    static final int THREADS = 8;
+    static final int UPDATES_PER_THREAD = 50;
+    static final int MEMBERS = 200;
+    static final int HOT_MEMBERS = 20; // 충돌이 잦은 경우
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    OptimisticLockRetry optimisticLockRetry;
+
+    TransactionTemplate tx;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 0; i < MEMBERS; i++) {
+                Member m = new Member("member" + i, 0, teamA);
+                em.persist(m);
+                memberIds.add(m.getId());
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    /**
+     * 충돌이 잦으면 재시도를 다 쓰고 실패하는 수정이 있을수 있다. (느린 CI 에서는 더 많다)
+     * 실패한 수정은 반영되지 않고, 성공한 수정은 하나도 잃어버리지 않아야 한다.
+     */
+    @Test
+    public void optimisticLockWithRetry() throws Exception {
+        AtomicLong committed = new AtomicLong();
+        run(HOT_MEMBERS, memberId -> {
+            try {
+                optimisticIncrement(memberId);
+                committed.incrementAndGet();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                // 재시도를 다 씀 => 이 수정은 반영되지 않았다.
+            }
+        });
+
+        assertThat(committed.get()).isPositive();
+        assertNoLostUpdates(committed.get());
+    }
+
+    @Test
+    public void pessimisticLock() throws Exception {
+        run(HOT_MEMBERS, this::pessimisticIncrement);
+
+        assertNoLostUpdates(THREADS * UPDATES_PER_THREAD);
+    }
+
+    /**
+     * 충돌이 드문 경우 낙관적 락은 select ... for update 보다 느리지 않아야 한다.
+     * H2 는 같은 프로세스 안이라 for update 비용이 작으므로, 더 빠른지 대신 크게 느리지 않은지만 본다.
+     * 벽시계 시간 비교라 부하가 있는 CI 에서 흔들리므로 perf 로만 돈다. (./gradlew perfTest)
+     */
+    @Tag("perf")
+    @Test
+    public void optimisticThroughputUnderLowContention() throws Exception {
+        run(MEMBERS, this::optimisticIncrement); // warm-up
+        run(MEMBERS, this::pessimisticIncrement);
+
+        long pessimistic = throughput(run(MEMBERS, this::pessimisticIncrement));
+        long optimistic = throughput(run(MEMBERS, this::optimisticIncrement));
+        System.out.println("optimistic = " + optimistic + " updates/s, pessimistic = " + pessimistic + " updates/s");
+
+        assertNoLostUpdates(4 * THREADS * UPDATES_PER_THREAD);
+        assertThat(optimistic).isGreaterThanOrEqualTo(pessimistic * 8 / 10);
+    }
+
+    private void optimisticIncrement(Long memberId) {
+        optimisticLockRetry.run(() -> {
+            Member findMember = em.find(Member.class, memberId);
+            findMember.setAge(findMember.getAge() + 1);
+        });
+    }
+
+    private void pessimisticIncrement(Long memberId) {
+        tx.executeWithoutResult(status -> {
+            Member findMember = em.find(Member.class, memberId, LockModeType.PESSIMISTIC_WRITE); // select ... for update
+            findMember.setAge(findMember.getAge() + 1);
+        });
+    }
+
+    private long run(int members, Consumer<Long> update) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    update.accept(memberIds.get(ThreadLocalRandom.current().nextInt(members)));
+                }
+            }));
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+        for (Future<?> future : futures) {
+            future.get(); // 재시도를 다 쓰고 실패한 스레드가 있으면 여기서 던진다.
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * 나이 합계 = 수정 횟수 : 잃어버린 수정이 없다.
+     * version 합계 = 수정 횟수 : 커밋된 수정마다 정확히 한번씩 썼다.
+     */
+    private void assertNoLostUpdates(long updates) {
+        assertThat(totalAge()).isEqualTo(updates);
+        assertThat(tx.execute(status -> em.createQuery("select sum(m.version) from Member m", Long.class)
+                .getSingleResult())).isEqualTo(updates);
+    }
+
+    private long throughput(long elapsedNanos) {
+        return THREADS * UPDATES_PER_THREAD * 1_000_000_000L / elapsedNanos;
+    }
+
+    private long totalAge() {
+        return tx.execute(status -> em.createQuery("select sum(m.age) from Member m", Long.class).getSingleResult());
+    }
+}
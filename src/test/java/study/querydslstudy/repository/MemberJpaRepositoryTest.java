@@ -2,10 +2,16 @@ package study.querydslstudy.repository;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityNotFoundException;
 import org.assertj.core.api.Assertions;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.jpa.JpaObjectRetrievalFailureException;
 import org.springframework.transaction.annotation.Transactional;
 import study.querydslstudy.dto.MemberSearchCondition;
 import study.querydslstudy.dto.MemberTeamDto;
@@ -13,8 +19,10 @@ import study.querydslstudy.entity.Member;
 import study.querydslstudy.entity.Team;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -24,6 +32,9 @@ class MemberJpaRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    EntityManagerFactory emf;
+
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
@@ -41,7 +52,24 @@ class MemberJpaRepositoryTest {
 
         List<Member> result2 = memberJpaRepository.findByUserNameQuerydsl("member1");
         assertThat(result2).containsExactly(member);
+    }
 
+    /**
+     * NamedQuery 버전은 Querydsl 버전과 같은 결과를 돌려준다.
+     */
+    @Test
+    public void namedQueries() throws Exception {
+        Member member1 = new Member("member1", 10);
+        Member member2 = new Member("member2", 20);
+        memberJpaRepository.save(member1);
+        memberJpaRepository.save(member2);
+
+        assertThat(memberJpaRepository.findAllNamed())
+                .containsExactlyInAnyOrderElementsOf(memberJpaRepository.findAllQuerydsl())
+                .containsExactlyInAnyOrder(member1, member2);
+        assertThat(memberJpaRepository.findByUserNameNamed("member2"))
+                .containsExactlyElementsOf(memberJpaRepository.findByUserNameQuerydsl("member2"))
+                .containsExactly(member2);
     }
 
     @Test
@@ -73,9 +101,85 @@ class MemberJpaRepositoryTest {
         assertThat(result).extracting("username").containsExactly("m3");
     }
 
+    @Test
+    public void findAllByIds() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
 
+        Member m1 = new Member("m1", 15, teamA);
+        Member m2 = new Member("m2", 21, teamA);
+        Member m3 = new Member("m3", 52);
+        em.persist(m1);
+        em.persist(m2);
+        em.persist(m3);
 
+        em.flush();
+        em.clear();
 
+        Map<Long, MemberTeamDto> result = memberJpaRepository.findAllByIds(
+                List.of(m3.getId(), m1.getId(), m1.getId(), -1L));
 
+        assertThat(result).containsOnlyKeys(m3.getId(), m1.getId());
+        assertThat(result.values()).extracting("username").containsExactly("m3", "m1");
+        assertThat(result.get(m1.getId()).getTeamName()).isEqualTo("teamA");
+        assertThat(result.get(m3.getId()).getTeamId()).isNull();
+    }
 
-}
\ No newline at end of file
+    @Test
+    public void searchNormalizedCondition() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setTeamName(" teamA ");
+        cond.setAgeGoe(21);
+        cond.setAgeLoe(21); // age = 21
+        assertThat(memberJpaRepository.search(cond)).extracting("username").containsExactly("m2");
+        assertThat(memberJpaRepository.searchByBuilder(cond)).extracting("username").containsExactly("m2");
+
+        cond.setAgeGoe(30);
+        cond.setAgeLoe(20); // 만족할 수 없는 조건
+        em.flush();
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertThat(memberJpaRepository.search(cond)).isEmpty();
+        assertThat(memberJpaRepository.searchByBuilder(cond)).isEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isZero(); // DB에 가지 않는다.
+    }
+
+    @Test
+    public void changeTeam() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member m1 = new Member("m1", 15, teamA);
+        em.persist(m1);
+        em.flush();
+        em.clear();
+
+        memberJpaRepository.changeTeam(m1.getId(), teamB.getId());
+        em.flush();
+
+        Team findTeamA = em.find(Team.class, teamA.getId());
+        assertThat(Hibernate.isInitialized(findTeamA.getMembers())).isFalse(); // 이전 팀 컬렉션을 읽지 않는다.
+        em.clear();
+
+        assertThat(em.find(Member.class, m1.getId()).getTeam().getId()).isEqualTo(teamB.getId());
+        // 회원이 오가도 팀 version 은 그대로다.
+        assertThat(em.find(Team.class, teamA.getId()).getVersion()).isEqualTo(teamA.getVersion());
+        assertThat(em.find(Team.class, teamB.getId()).getVersion()).isEqualTo(teamB.getVersion());
+    }
+
+    @Test
+    public void changeTeamMemberNotFound() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        assertThatThrownBy(() -> memberJpaRepository.changeTeam(-1L, teamA.getId()))
+                .isInstanceOf(JpaObjectRetrievalFailureException.class)
+                .hasCauseInstanceOf(EntityNotFoundException.class);
+    }
+}
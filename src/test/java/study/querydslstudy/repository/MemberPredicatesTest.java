@@ -0,0 +1,38 @@
+package study.querydslstudy.repository;
+
+import org.junit.jupiter.api.Test;
+import study.querydslstudy.dto.MemberSearchCondition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydslstudy.entity.QMember.member;
+import static study.querydslstudy.entity.QTeam.team;
+
+class MemberPredicatesTest {
+
+    @Test
+    public void blankConditionIsIgnored() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("  ");
+        condition.setTeamName("");
+
+        assertThat(MemberPredicates.of(condition.normalize())).isNull();
+    }
+
+    @Test
+    public void trimAndCombine() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName(" teamB ");
+        condition.setAgeGoe(35);
+        condition.setAgeLoe(40);
+
+        assertThat(MemberPredicates.of(condition.normalize()))
+                .isEqualTo(team.name.eq("teamB").and(member.age.between(35, 40)));
+    }
+
+    @Test
+    public void sameAgeBoundIsEq() throws Exception {
+        assertThat(MemberPredicates.ageBetween(20, 20)).isEqualTo(member.age.eq(20));
+        assertThat(MemberPredicates.ageBetween(null, 20)).isEqualTo(member.age.loe(20));
+        assertThat(MemberPredicates.ageBetween(null, null)).isNull();
+    }
+}
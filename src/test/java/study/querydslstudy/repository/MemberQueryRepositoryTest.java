@@ -0,0 +1,90 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Test
+    public void exportReusesBuffer() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+        em.persist(new Member("m3", 52));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        Map<MemberTeamDto, Boolean> buffers = new IdentityHashMap<>();
+        List<String> rows = new ArrayList<>();
+
+        long count = memberQueryRepository.exportTo(condition, dto -> {
+            buffers.put(dto, true);
+            rows.add(dto.getUsername() + "/" + dto.getAge() + "/" + dto.getTeamName()); // 보관하지 않고 값만 복사
+        });
+
+        assertThat(count).isEqualTo(3);
+        assertThat(buffers).hasSize(1); // 모든 row가 같은 dto
+        assertThat(rows).containsExactlyInAnyOrder("m1/15/teamA", "m2/21/teamA", "m3/52/null");
+    }
+
+    @Test
+    public void exportWithCondition() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+        List<String> usernames = new ArrayList<>();
+
+        long count = memberQueryRepository.exportTo(condition, dto -> usernames.add(dto.getUsername()));
+
+        assertThat(count).isEqualTo(1);
+        assertThat(usernames).containsExactly("m2");
+    }
+
+    @Test
+    public void unsatisfiableConditionSkipsDatabase() throws Exception {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setAgeGoe(30);
+        cond.setAgeLoe(20); // 만족할 수 없는 조건
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(memberQueryRepository.search(cond)).isEmpty();
+        assertThat(memberQueryRepository.exportTo(cond, dto -> {})).isZero();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
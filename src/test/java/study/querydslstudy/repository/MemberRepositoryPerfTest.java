@@ -0,0 +1,182 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.entity.Member;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 회원 100만명(application-perf.yml)으로 리포지토리 메서드 시간을 잰다. ./gradlew perfTest
+ * 기본 test 태스크에서는 빠진다. (@Tag("perf"))
+ * 측정값은 build/perf-results/MemberRepositoryPerfTest.csv 에 이어쓰므로 빌드끼리 비교할수 있다.
+ * 기준 시간은 CI 장비 기준으로 넉넉하게 잡았다. 시간보다 쿼리 수 검사(N+1)가 더 확실한 회귀 신호다.
+ */
+@Tag("perf")
+@ActiveProfiles("perf")
+@SpringBootTest
+@Transactional
+class MemberRepositoryPerfTest {
+
+    private static final int WARMUP = 3;
+    private static final int RUNS = 5;
+    private static final Path RESULTS = Path.of("build", "perf-results", "MemberRepositoryPerfTest.csv");
+    private static final List<String> rows = new ArrayList<>();
+
+    @Autowired
+    EntityManager em;
+    @Autowired
+    EntityManagerFactory emf;
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @Value("${app.init.members}")
+    int members;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    public void seeded() throws Exception {
+        assertThat(memberRepository.count()).isEqualTo(members);
+    }
+
+    @Test
+    public void usernameIndex() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername("member777777");
+
+        List<MemberTeamDto> result = measure("search_username_eq", 50, () -> memberJpaRepository.search(condition));
+
+        assertThat(result).hasSize(1);
+    }
+
+    @Test
+    public void usernamePrefixIndex() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsernameStartsWith("member77777");
+
+        List<MemberTeamDto> result = measure("search_username_prefix", 100, () -> memberRepository.search(condition));
+
+        assertThat(result).hasSize(11); // member77777, member777770 ~ member777779
+    }
+
+    @Test
+    public void deepOffsetVsKeyset() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        PageRequest deepPage = PageRequest.of(900_000 / 20, 20);
+
+        Page<MemberTeamDto> offset = measure("page_complex_optimize_offset_900k", 5000,
+                () -> memberRepository.searchPageComplexOptimize(condition, deepPage));
+        assertThat(offset.getContent()).hasSize(20);
+        assertThat(offset.getTotalElements()).isEqualTo(members);
+
+        Long lastMemberId = offset.getContent().get(offset.getContent().size() - 1).getMemberId();
+        List<MemberTeamDto> keyset = measure("search_after_keyset_900k", 50,
+                () -> memberRepository.searchAfter(condition, lastMemberId, 20));
+        // 같은 순서(member.id)이므로 키셋으로 읽은 다음 페이지는 offset 의 다음 페이지와 같아야 한다.
+        Page<MemberTeamDto> nextOffset = memberRepository.searchPageComplexOptimize(condition, deepPage.next());
+        assertThat(keyset).extracting("memberId")
+                .containsExactlyElementsOf(nextOffset.getContent().stream().map(MemberTeamDto::getMemberId).toList());
+        assertThat(keyset).hasSize(20);
+    }
+
+    /**
+     * 페이지 회원의 팀 접근이 회원수만큼 쿼리를 만들면 안된다. (N+1)
+     */
+    @Test
+    public void noNPlusOne() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(500_000);
+
+        measure("apply_page_with_team", 500,
+                () -> memberTestRepository.searchPageByApplyPage(condition, PageRequest.of(0, 100)));
+
+        statistics.clear();
+        Page<Member> page = memberTestRepository.searchPageByApplyPage(condition, PageRequest.of(0, 100));
+        page.getContent().forEach(m -> m.getTeam().getName());
+        long queries = statistics.getPrepareStatementCount();
+
+        assertThat(page.getContent()).hasSize(100);
+        assertThat(queries).isLessThanOrEqualTo(3); // content + count + team IN 쿼리
+    }
+
+    /**
+     * WARMUP 번 버리고 RUNS 번 잰 중간값이 budgetMs 이하여야 한다.
+     */
+    private <T> T measure(String name, long budgetMs, Supplier<T> work) {
+        T result = null;
+        for (int i = 0; i < WARMUP; i++) {
+            result = work.get();
+            em.clear(); // 영속성 컨텍스트 캐시로 빨라지지 않도록
+        }
+        long[] elapsed = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            result = work.get();
+            elapsed[i] = (System.nanoTime() - start) / 1_000_000;
+            em.clear();
+        }
+        Arrays.sort(elapsed);
+        long median = elapsed[RUNS / 2];
+        System.out.println(name + " = " + median + "ms (budget " + budgetMs + "ms)");
+
+        rows.add(String.join(",", LocalDateTime.now().toString(), build(), name,
+                String.valueOf(members), String.valueOf(median), String.valueOf(budgetMs)));
+        assertThat(median).as(name).isLessThanOrEqualTo(budgetMs);
+        return result;
+    }
+
+    @AfterAll
+    static void writeResults() throws IOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(RESULTS.getParent());
+        if (!Files.exists(RESULTS)) {
+            Files.writeString(RESULTS, "time,build,test,members,median_ms,budget_ms" + System.lineSeparator(),
+                    StandardCharsets.UTF_8);
+        }
+        Files.write(RESULTS, rows, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+
+    // CI 빌드 번호, 로컬이면 local
+    private static String build() {
+        String build = System.getenv("BUILD_NUMBER");
+        return build != null ? build : "local";
+    }
+}
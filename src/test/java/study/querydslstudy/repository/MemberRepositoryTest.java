@@ -1,10 +1,17 @@
 package study.querydslstudy.repository;
 
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,6 +24,7 @@ import study.querydslstudy.entity.Team;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 import static study.querydslstudy.entity.QMember.member;
 
@@ -27,9 +35,15 @@ class MemberRepositoryTest {
     @Autowired
     EntityManager em;
 
+    @Autowired
+    EntityManagerFactory emf;
+
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @Test
     public void basicTest() throws Exception {
         Member member = new Member("member1", 10);
@@ -102,6 +116,57 @@ class MemberRepositoryTest {
         assertThat(result.getContent()).extracting("username").containsExactly("m1", "m2", "m3");
     }
 
+    @Test
+    public void searchAfter() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 7; i++) {
+            em.persist(new Member("member" + i, 10 + i, teamA));
+        }
+        em.persist(new Member("noTeam", 99)); // leftJoin 이므로 팀이 없는 회원도 나온다.
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        PageRequest pageReq = PageRequest.of(0, 3);
+
+        // 키셋으로 끝까지 읽은 결과는 offset 페이지를 차례로 읽은 결과와 같다.
+        Long lastMemberId = null;
+        List<MemberTeamDto> keyset;
+        do {
+            keyset = memberRepository.searchAfter(cond, lastMemberId, 3);
+            Page<MemberTeamDto> offset = memberRepository.searchPageComplexOptimize(cond, pageReq);
+            assertThat(keyset).extracting("memberId")
+                    .containsExactlyElementsOf(offset.getContent().stream().map(MemberTeamDto::getMemberId).toList());
+            if (!keyset.isEmpty()) {
+                lastMemberId = keyset.get(keyset.size() - 1).getMemberId();
+            }
+            pageReq = pageReq.next();
+        } while (keyset.size() == 3);
+
+        assertThat(pageReq.getPageNumber()).isEqualTo(3); // 3 + 3 + 2
+        assertThat(keyset).extracting("username").containsExactly("member6", "noTeam");
+
+        // 조건이 있으면 조건에 맞는 회원 중 다음 회원부터
+        cond.setAgeGoe(12);
+        List<MemberTeamDto> firstPage = memberRepository.searchAfter(cond, null, 2);
+        assertThat(firstPage).extracting("username").containsExactly("member2", "member3");
+        assertThat(memberRepository.searchAfter(cond, firstPage.get(1).getMemberId(), 2))
+                .extracting("username").containsExactly("member4", "member5");
+    }
+
+    @Test
+    public void searchUsernamePrefix() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("kim1", 15, teamA));
+        em.persist(new Member("kim2", 21, teamA));
+        em.persist(new Member("lee1", 52, teamA));
+
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsernameStartsWith("kim");
+        assertThat(memberRepository.search(cond)).extracting("username").containsExactly("kim1", "kim2");
+    }
+
     /**
      * 인터페이스 지원 - QuerydslPredicateExecutor
      * 단점 조인X (leftjoin 불가능)
@@ -137,4 +202,61 @@ class MemberRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * MemberRepository 의 findAll(Predicate) 는 기본 구현이 아니라 MemberPredicateExecutorImpl 을 거친다.
+     * 풀스캔 조건이 여러개인 비싼 Predicate 는 쿼리 전에 거절된다.
+     */
+    @Test
+    public void querydslPredicateExecutorRejectsCostlyPredicate() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+
+        double checked = cost("index").count();
+        double rejected = rejected("scan").count();
+
+        // 인덱스 조건은 통과
+        assertThat(memberRepository.findAll(member.age.between(10, 20))).extracting("username").containsExactly("m1");
+        assertThat(cost("index").count()).isEqualTo(checked + 1);
+
+        // 인덱스 컬럼 접두어 검색은 인덱스 범위 스캔이라 풀스캔으로 세지 않는다.
+        assertThat(memberRepository.findAll(member.username.startsWith("m").and(member.username.like("m%"))))
+                .extracting("username").containsExactlyInAnyOrder("m1", "m2");
+        assertThat(cost("index").count()).isEqualTo(checked + 2);
+
+        // like '%x%' 두개 = 풀스캔 두번
+        assertThatThrownBy(() -> memberRepository.findAll(member.username.contains("m")
+                .or(member.team.name.endsWith("A"))))
+                .isInstanceOf(InvalidDataAccessApiUsageException.class)
+                .hasCauseInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Predicate is too expensive");
+        assertThat(rejected("scan").count()).isEqualTo(rejected + 1);
+    }
+
+    private DistributionSummary cost(String shape) {
+        return meterRegistry.get("querydsl.predicate.cost").tag("entity", "Member").tag("shape", shape).summary();
+    }
+
+    private Counter rejected(String shape) {
+        return meterRegistry.get("querydsl.predicate.rejected").tag("entity", "Member").tag("shape", shape).counter();
+    }
+
+    @Test
+    public void unsatisfiableConditionSkipsDatabase() throws Exception {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setAgeGoe(30);
+        cond.setAgeLoe(20); // 만족할 수 없는 조건
+        PageRequest pageReq = PageRequest.of(0, 3);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(memberRepository.search(cond)).isEmpty();
+        assertThat(memberRepository.searchPageSimple(cond, pageReq)).isEmpty();
+        assertThat(memberRepository.searchPageComplex(cond, pageReq)).isEmpty();
+        assertThat(memberRepository.searchPageComplexOptimize(cond, pageReq)).isEmpty();
+        assertThat(memberRepository.searchAfter(cond, null, 3)).isEmpty();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+}
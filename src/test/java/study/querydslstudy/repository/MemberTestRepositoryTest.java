@@ -0,0 +1,125 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberTestRepository memberTestRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        em.persist(new Member("m1", 30, teamA));
+        em.persist(new Member("m2", 20, teamA));
+        em.persist(new Member("m3", 20, teamA));
+    }
+
+    @Test
+    public void sortByAllowedProperty() throws Exception {
+        PageRequest pageReq = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "age"));
+
+        Page<Member> result = memberTestRepository.searchPageByApplyPage(new MemberSearchCondition(), pageReq);
+
+        // 나이가 같으면 id 순서 (tiebreaker)
+        assertThat(result.getContent()).extracting("username").containsExactly("m1", "m2", "m3");
+    }
+
+    @Test
+    public void sortByNotAllowedProperty() throws Exception {
+        PageRequest pageReq = PageRequest.of(0, 3, Sort.by("team.name"));
+
+        assertThatThrownBy(() -> memberTestRepository.applyPagination(new MemberSearchCondition(), pageReq))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void unsatisfiableConditionSkipsDatabase() throws Exception {
+        em.flush();
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setAgeGoe(30);
+        cond.setAgeLoe(20); // 만족할 수 없는 조건
+        PageRequest pageReq = PageRequest.of(0, 3);
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(memberTestRepository.searchPageByApplyPage(cond, pageReq)).isEmpty();
+        assertThat(memberTestRepository.applyPagination(cond, pageReq)).isEmpty();
+        assertThat(memberTestRepository.applyPagination2(cond, pageReq).getTotalElements()).isZero();
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // DB에 가지 않아도 정렬 속성 검사는 한다.
+        assertThatThrownBy(() -> memberTestRepository.applyPagination(cond, PageRequest.of(0, 3, Sort.by("team.name"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * member.getTeam() 은 처음 건드릴때 default_batch_fetch_size 로 페이지의 팀 프록시를 IN 쿼리 한번에 초기화한다.
+     * 팀을 건드리지 않으면 팀 쿼리는 나가지 않는다.
+     */
+    @Test
+    public void teamsLoadLazilyInOneBatch() throws Exception {
+        Team teamB = new Team("teamB");
+        Team teamC = new Team("teamC");
+        em.persist(teamB);
+        em.persist(teamC);
+        em.persist(new Member("m4", 40, teamB));
+        em.persist(new Member("m5", 50, teamC));
+        em.flush();
+        em.clear();
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Member> result = memberTestRepository.searchPageByApplyPage(new MemberSearchCondition(), PageRequest.of(0, 10));
+        assertThat(result.getContent()).hasSize(5);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1); // content (5건 < 10 이라 count 생략)
+
+        assertThat(result.getContent()).extracting(m -> m.getTeam().getName())
+                .containsExactlyInAnyOrder("teamA", "teamA", "teamA", "teamB", "teamC");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // 팀 3개를 IN 쿼리 한번에
+    }
+
+    /**
+     * 페이지 조회 결과는 일반 엔티티라서 수정하면 update 가 나간다. (readOnly 아님)
+     */
+    @Test
+    public void pageResultIsDirtyChecked() throws Exception {
+        Page<Member> result = memberTestRepository.searchPageByApplyPage(new MemberSearchCondition(),
+                PageRequest.of(0, 1, Sort.by("username")));
+        Member m1 = result.getContent().get(0);
+
+        m1.changeProfile(null, 31);
+        em.flush();
+        em.clear();
+
+        assertThat(em.find(Member.class, m1.getId()).getAge()).isEqualTo(31);
+    }
+}
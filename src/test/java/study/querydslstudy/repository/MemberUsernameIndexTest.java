@@ -0,0 +1,166 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.dto.MemberTeamDto;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.MemberUsernameGram;
+import study.querydslstudy.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * username 부분 검색은 커밋 직전에 만들어지는 3-gram 색인을 쓴다.
+ * 커밋이 필요하므로 @Transactional 을 붙이지 않고, 끝나면 만든 데이터를 지운다.
+ */
+@SpringBootTest
+class MemberUsernameIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberUsernameIndex memberUsernameIndex;
+
+    TransactionTemplate tx;
+    Long teamAId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            teamAId = teamA.getId();
+            em.persist(new Member("kimchi", 15, teamA));
+            em.persist(new Member("parkjimin", 21, teamA));
+            em.persist(new Member("leekim", 52, teamA));
+            em.persist(new Member("chikim", 62, teamA));
+            em.persist(new Member("abcxbcaxcab", 70, teamA));
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void grams() throws Exception {
+        char e = MemberUsernameGram.END;
+        assertThat(MemberUsernameGram.grams("kim")).containsExactly("kim", "im" + e, "m" + e + e);
+        assertThat(MemberUsernameGram.grams("aaaa")).containsExactly("aaa", "aa" + e, "a" + e + e); // 중복은 한번만
+        assertThat(MemberUsernameGram.keywordGrams("kimc")).containsExactly("kim", "imc");
+        assertThat(MemberUsernameGram.keywordGrams("ki")).isEmpty();
+    }
+
+    @Test
+    public void contains() throws Exception {
+        assertThat(usernamesContaining("kim")).containsExactly("kimchi", "leekim", "chikim");
+        assertThat(usernamesContaining("chi")).containsExactly("kimchi", "chikim");
+        assertThat(usernamesContaining("jim")).containsExactly("parkjimin");
+        assertThat(usernamesContaining("xyz")).isEmpty();
+
+        // 3글자보다 짧으면 gram 접두어로 찾는다. (끝 글자도 찾아야 한다)
+        assertThat(usernamesContaining("im")).containsExactly("kimchi", "parkjimin", "leekim", "chikim");
+        assertThat(usernamesContaining("n")).containsExactly("parkjimin");
+
+        assertThat(usernamesContaining("kimch")).containsExactly("kimchi");
+        // gram(abc, bca, cab)은 모두 있어도 이어지지 않으면 아니다.
+        assertThat(usernamesContaining("bca")).containsExactly("abcxbcaxcab");
+        assertThat(usernamesContaining("abcab")).isEmpty();
+    }
+
+    @Test
+    public void containsWithOtherConditions() throws Exception {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsernameContains(" kim ");
+        cond.setAgeGoe(50);
+        cond.setTeamName("teamA");
+        assertThat(memberRepository.search(cond)).extracting("username").containsExactlyInAnyOrder("leekim", "chikim");
+        assertThat(memberRepository.searchPageComplexOptimize(cond, PageRequest.of(0, 1)))
+                .extracting("username").containsExactly("leekim");
+    }
+
+    @Test
+    public void followsMemberWrites() throws Exception {
+        Long parkId = idOf("parkjimin");
+
+        // username 변경 => 이전 gram 은 지우고 새 gram 을 넣는다.
+        tx.executeWithoutResult(status -> em.find(Member.class, parkId).changeProfile("parkkim", null));
+        assertThat(usernamesContaining("jim")).isEmpty();
+        assertThat(usernamesContaining("kkim")).containsExactly("parkkim");
+        assertThat(gramCount(parkId)).isEqualTo(MemberUsernameGram.grams("parkkim").size());
+
+        // 나이만 바꾸면 색인은 그대로
+        tx.executeWithoutResult(status -> em.find(Member.class, parkId).changeProfile(null, 30));
+        assertThat(gramCount(parkId)).isEqualTo(MemberUsernameGram.grams("parkkim").size());
+
+        // delete
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, parkId)));
+        assertThat(gramCount(parkId)).isZero();
+
+        // rollback
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("kimbap", 10, em.find(Team.class, teamAId)));
+            status.setRollbackOnly();
+        });
+        assertThat(usernamesContaining("bap")).isEmpty();
+    }
+
+    @Test
+    public void rebuildAllAfterBulkUpdate() throws Exception {
+        // 벌크 update 는 이벤트를 거치지 않으므로 색인이 어긋난다.
+        tx.executeWithoutResult(status -> em.createQuery("update Member m set m.username = concat(m.username, 'x')")
+                .executeUpdate());
+        assertThat(usernamesContaining("kimx")).isEmpty();
+
+        memberUsernameIndex.rebuildAll();
+
+        assertThat(usernamesContaining("kimx")).containsExactly("leekimx", "chikimx");
+        assertThat(usernamesContaining("chi")).containsExactly("kimchix", "chikimx");
+    }
+
+    private List<String> usernamesContaining(String keyword) {
+        MemberSearchCondition cond = new MemberSearchCondition();
+        cond.setUsernameContains(keyword);
+        return memberRepository.search(cond).stream()
+                .sorted((a, b) -> Long.compare(a.getMemberId(), b.getMemberId()))
+                .map(MemberTeamDto::getUsername)
+                .toList();
+    }
+
+    private Long idOf(String username) {
+        return tx.execute(status -> em.createQuery("select m.id from Member m where m.username = :username", Long.class)
+                .setParameter("username", username)
+                .getSingleResult());
+    }
+
+    private long gramCount(Long memberId) {
+        return tx.execute(status -> em.createQuery(
+                        "select count(*) from MemberUsernameGram g where g.memberId = :memberId", Long.class)
+                .setParameter("memberId", memberId)
+                .getSingleResult());
+    }
+}
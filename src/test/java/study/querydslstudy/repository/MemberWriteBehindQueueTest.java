@@ -0,0 +1,216 @@
+package study.querydslstudy.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.dto.MemberUpdateDto;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.repository.MemberWriteBehindQueue.Durability;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * app.write-behind.enabled 없이 큐를 직접 만들어서 flush 를 손으로 부른다.
+ * 커밋이 필요하므로 @Transactional 을 붙이지 않고, 끝나면 만든 데이터를 지운다.
+ */
+@SpringBootTest
+class MemberWriteBehindQueueTest {
+
+    static final long NO_SCHEDULED_FLUSH = 60_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory qf;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    TransactionTemplate tx;
+    Long member1Id;
+    Long member2Id;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Member member1 = new Member("member1", 10);
+            Member member2 = new Member("member2", 20);
+            em.persist(member1);
+            em.persist(member2);
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+        });
+    }
+
+    @Test
+    public void coalesce() throws Exception {
+        MemberWriteBehindQueue queue = queue(transactionManager, 10, Durability.MEMORY);
+
+        queue.submit(member1Id, new MemberUpdateDto("renamed", null));
+        queue.submit(member1Id, new MemberUpdateDto(null, 30));
+        assertThat(queue.pendingCount()).isEqualTo(1);
+
+        queue.flush();
+
+        assertThat(queue.pendingCount()).isZero();
+        Member findMember = findMember(member1Id);
+        assertThat(findMember.getUsername()).isEqualTo("renamed");
+        assertThat(findMember.getAge()).isEqualTo(30);
+    }
+
+    @Test
+    public void backPressure() throws Exception {
+        MemberWriteBehindQueue queue = queue(transactionManager, 1, Durability.MEMORY);
+
+        queue.submit(member1Id, new MemberUpdateDto(null, 11));
+        queue.submit(member1Id, new MemberUpdateDto(null, 12)); // 이미 대기중인 회원은 합쳐지므로 자리를 차지하지 않는다.
+        assertThatThrownBy(() -> queue.submit(member2Id, new MemberUpdateDto(null, 21)))
+                .isInstanceOf(RejectedExecutionException.class);
+
+        queue.flush();
+        queue.submit(member2Id, new MemberUpdateDto(null, 21));
+        assertThat(queue.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void journalReplay() throws Exception {
+        Path journal = dir.resolve("member.journal");
+        MemberWriteBehindQueue crashed = queue(transactionManager, 10, Durability.JOURNAL, journal);
+        crashed.start();
+        crashed.submit(member1Id, new MemberUpdateDto("이름,쉼표", null));
+        crashed.submit(member1Id, new MemberUpdateDto(null, 30));
+        assertThat(Files.readAllLines(journal)).hasSize(2);
+        // stop() 을 부르지 않고 버린다. (프로세스가 죽은 상황)
+
+        MemberWriteBehindQueue restarted = queue(transactionManager, 10, Durability.JOURNAL, journal);
+        restarted.start();
+        assertThat(restarted.pendingCount()).isEqualTo(1);
+        restarted.stop(); // 남은 변경 내보내기
+
+        Member findMember = findMember(member1Id);
+        assertThat(findMember.getUsername()).isEqualTo("이름,쉼표");
+        assertThat(findMember.getAge()).isEqualTo(30);
+        assertThat(Files.readAllLines(journal)).isEmpty(); // 반영된 변경은 저널에서 빠진다.
+
+        crashed.stop(); // 남아있는 스케줄러 정리 (같은 변경을 한번 더 반영할 뿐이다)
+    }
+
+    /**
+     * 동시에 submit 해도 fsync 는 모아서 한다. 반환된 submit 은 모두 저널에 남아있어야 한다.
+     */
+    @Test
+    public void journalGroupCommit() throws Exception {
+        Path journal = dir.resolve("member.journal");
+        MemberWriteBehindQueue crashed = queue(transactionManager, 10, Durability.JOURNAL, journal);
+        crashed.start();
+
+        int threads = 8;
+        int perThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Long memberId = t % 2 == 0 ? member1Id : member2Id;
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                ready.await();
+                for (int i = 0; i < perThread; i++) {
+                    crashed.submit(memberId, new MemberUpdateDto(null, thread * perThread + i));
+                }
+                return null;
+            }));
+        }
+        ready.countDown();
+        for (Future<?> future : futures) {
+            future.get(); // 예외가 있으면 여기서 던진다.
+        }
+        executor.shutdown();
+
+        int submits = threads * perThread;
+        assertThat(Files.readAllLines(journal)).hasSize(submits);
+        assertThat(crashed.journalSyncCount()).isBetween(1L, (long) submits);
+        // stop() 을 부르지 않고 버린다. (프로세스가 죽은 상황)
+
+        MemberWriteBehindQueue restarted = queue(transactionManager, 10, Durability.JOURNAL, journal);
+        restarted.start();
+        assertThat(restarted.pendingCount()).isEqualTo(2);
+        restarted.stop();
+        crashed.stop();
+    }
+
+    @Test
+    public void dropAfterMaxAttempts() throws Exception {
+        MemberWriteBehindQueue queue = queue(new FailingTransactionManager(), 10, Durability.MEMORY);
+        queue.submit(member1Id, new MemberUpdateDto(null, 30));
+
+        queue.flush();
+        queue.flush();
+        assertThat(queue.pendingCount()).isEqualTo(1); // 실패하면 다시 넣는다.
+
+        queue.flush();
+        assertThat(queue.pendingCount()).isZero(); // max-attempts(3) 번째 실패에서 버린다.
+        assertThat(findMember(member1Id).getAge()).isEqualTo(10);
+    }
+
+    private MemberWriteBehindQueue queue(PlatformTransactionManager txManager, int capacity, Durability durability) {
+        return queue(txManager, capacity, durability, dir.resolve("unused.journal"));
+    }
+
+    private MemberWriteBehindQueue queue(PlatformTransactionManager txManager, int capacity,
+                                         Durability durability, Path journal) {
+        return new MemberWriteBehindQueue(qf, txManager, capacity, 100, NO_SCHEDULED_FLUSH, 50, 3, durability, journal);
+    }
+
+    private Member findMember(Long memberId) {
+        return tx.execute(status -> em.find(Member.class, memberId));
+    }
+
+    static class FailingTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            throw new CannotCreateTransactionException("database is down");
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
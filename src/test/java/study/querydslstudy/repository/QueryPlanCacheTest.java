@@ -0,0 +1,81 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.dto.MemberSearchCondition;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class QueryPlanCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    /**
+     * 동적 조건의 모든 조합(2^4)을 두번 돌린다.
+     * 두번째 바퀴는 파라미터 값만 다르고 JPQL 모양은 같으므로 다시 해석(miss)하지 않고 플랜 캐시에서 꺼내와야 한다.
+     * 값이 JPQL 에 박히거나 캐시가 모양 수보다 작으면(QueryPlanCacheThrashingTest) 두번째 바퀴에도 miss 가 늘어난다.
+     */
+    @Test
+    public void noMissOnRepeatedShapes() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        runAll(memberJpaRepository, memberRepository, conditions("m1", "teamA", 10, 30));
+        long misses = statistics.getQueryPlanCacheMissCount();
+        long hits = statistics.getQueryPlanCacheHitCount();
+
+        runAll(memberJpaRepository, memberRepository, conditions("m2", "teamB", 20, 40));
+
+        assertThat(statistics.getQueryPlanCacheMissCount()).isEqualTo(misses);
+        assertThat(statistics.getQueryPlanCacheHitCount()).isGreaterThan(hits);
+    }
+
+    static void runAll(MemberJpaRepository memberJpaRepository, MemberRepository memberRepository,
+                       List<MemberSearchCondition> conditions) {
+        for (MemberSearchCondition cond : conditions) {
+            memberJpaRepository.search(cond);
+            memberJpaRepository.searchByBuilder(cond);
+            memberRepository.searchPageComplex(cond, PageRequest.of(0, 10));
+        }
+    }
+
+    static List<MemberSearchCondition> conditions(String username, String teamName, int ageGoe, int ageLoe) {
+        List<MemberSearchCondition> result = new ArrayList<>();
+        for (int mask = 0; mask < 16; mask++) {
+            MemberSearchCondition cond = new MemberSearchCondition();
+            if ((mask & 1) != 0) cond.setUsername(username);
+            if ((mask & 2) != 0) cond.setTeamName(teamName);
+            if ((mask & 4) != 0) cond.setAgeGoe(ageGoe);
+            if ((mask & 8) != 0) cond.setAgeLoe(ageLoe);
+            result.add(cond);
+        }
+        return result;
+    }
+}
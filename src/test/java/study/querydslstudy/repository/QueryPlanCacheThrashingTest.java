@@ -0,0 +1,51 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydslstudy.repository.QueryPlanCacheTest.conditions;
+import static study.querydslstudy.repository.QueryPlanCacheTest.runAll;
+
+/**
+ * 플랜 캐시가 쿼리 모양 수보다 작으면 같은 모양을 다시 돌려도 miss 가 계속 늘어난다. (캐시를 키워야 한다는 신호)
+ * 스키마를 다시 만들므로 다른 테스트와 DB 를 나눠 쓰지 않게 메모리 DB 를 따로 쓴다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plancache;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.query.plan_cache_max_size=" + QueryPlanCacheThrashingTest.MAX_SIZE
+})
+@Transactional
+class QueryPlanCacheThrashingTest {
+
+    static final int MAX_SIZE = 8;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void missesKeepGrowingWhenCacheIsTooSmall() throws Exception {
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        Statistics statistics = sessionFactory.getStatistics();
+
+        runAll(memberJpaRepository, memberRepository, conditions("m1", "teamA", 10, 30));
+        long misses = statistics.getQueryPlanCacheMissCount();
+
+        runAll(memberJpaRepository, memberRepository, conditions("m2", "teamB", 20, 40));
+
+        assertThat(statistics.getQueryPlanCacheMissCount()).isGreaterThan(misses);
+        assertThat(sessionFactory.getQueryEngine().getInterpretationCache().getNumberOfCachedHqlInterpretations())
+                .isLessThanOrEqualTo(MAX_SIZE);
+    }
+}
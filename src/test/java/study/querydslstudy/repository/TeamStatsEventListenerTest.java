@@ -0,0 +1,164 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+import study.querydslstudy.entity.TeamStats;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋 직전 TeamStatsEventListener 가 증감분을 반영하는지 본다.
+ * 커밋이 필요하므로 @Transactional 을 붙이지 않고, 끝나면 만든 데이터를 지운다.
+ */
+@SpringBootTest
+class TeamStatsEventListenerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    TeamStatsUpdater teamStatsUpdater;
+
+    TransactionTemplate tx;
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        tx.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from MemberUsernameGram").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+        });
+    }
+
+    @Test
+    public void insertUpdateChangeTeamDelete() throws Exception {
+        // 새 팀은 회원이 없는 통계 행이 생긴다.
+        assertStats(teamAId, 0, 0, null, null);
+
+        // insert
+        List<Long> ids = tx.execute(status -> {
+            Team teamA = em.find(Team.class, teamAId);
+            Team teamB = em.find(Team.class, teamBId);
+            Member m1 = new Member("m1", 15, teamA);
+            Member m2 = new Member("m2", 21, teamA);
+            Member m3 = new Member("m3", 52, teamB);
+            em.persist(m1);
+            em.persist(m2);
+            em.persist(m3);
+            return List.of(m1.getId(), m2.getId(), m3.getId());
+        });
+        assertStats(teamAId, 2, 36, 15, 21);
+        assertStats(teamBId, 1, 52, 52, 52);
+
+        // update - min 이었던 회원의 나이가 바뀌면 min/max 를 다시 계산한다.
+        tx.executeWithoutResult(status -> em.find(Member.class, ids.get(0)).changeProfile(null, 30));
+        assertStats(teamAId, 2, 51, 21, 30);
+
+        // changeTeam - 이전 팀에서 빠지고 새 팀에 더해진다.
+        tx.executeWithoutResult(status -> em.find(Member.class, ids.get(1)).changeTeam(em.find(Team.class, teamBId)));
+        assertStats(teamAId, 1, 30, 30, 30);
+        assertStats(teamBId, 2, 73, 21, 52);
+
+        // delete
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids.get(2))));
+        assertStats(teamBId, 1, 21, 21, 21);
+        tx.executeWithoutResult(status -> em.remove(em.find(Member.class, ids.get(0))));
+        assertStats(teamAId, 0, 0, null, null);
+    }
+
+    @Test
+    public void rollbackDoesNothing() throws Exception {
+        tx.executeWithoutResult(status -> {
+            em.persist(new Member("m1", 15, em.find(Team.class, teamAId)));
+            status.setRollbackOnly();
+        });
+        assertStats(teamAId, 0, 0, null, null);
+    }
+
+    @Test
+    public void runWithoutStats() throws Exception {
+        TeamStatsEventListener.runWithoutStats(() -> {
+            TeamStatsEventListener.runWithoutStats(() -> tx.executeWithoutResult(
+                    status -> em.persist(new Member("m1", 15, em.find(Team.class, teamAId)))));
+            // 안쪽 호출이 끝나도 바깥 호출 동안은 계속 집계하지 않는다.
+            tx.executeWithoutResult(status -> em.persist(new Member("m2", 21, em.find(Team.class, teamAId))));
+        });
+        assertStats(teamAId, 0, 0, null, null);
+
+        // 끝나면 다시 집계한다.
+        tx.executeWithoutResult(status -> em.persist(new Member("m3", 52, em.find(Team.class, teamAId))));
+        assertStats(teamAId, 1, 52, 52, 52);
+
+        teamStatsUpdater.refreshAll();
+        assertStats(teamAId, 3, 88, 15, 52);
+    }
+
+    /**
+     * 같은 팀에 동시에 회원을 넣어도 서로의 증감분을 덮어쓰지 않는다.
+     */
+    @Test
+    public void concurrentInsertsToSameTeam() throws Exception {
+        int threads = 8;
+        int perThread = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int age = thread * perThread + i;
+                    tx.executeWithoutResult(status -> em.persist(new Member("m" + age, age, em.find(Team.class, teamAId))));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(); // 예외가 있으면 여기서 던진다.
+        }
+        executor.shutdown();
+
+        int n = threads * perThread;
+        assertStats(teamAId, n, (long) n * (n - 1) / 2, 0, n - 1);
+    }
+
+    private void assertStats(Long teamId, long count, long sum, Integer min, Integer max) {
+        TeamStats stats = tx.execute(status -> em.find(TeamStats.class, teamId));
+        assertThat(stats).isNotNull();
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(sum);
+        assertThat(stats.getAgeMin()).isEqualTo(min);
+        assertThat(stats.getAgeMax()).isEqualTo(max);
+    }
+}
@@ -0,0 +1,74 @@
+package study.querydslstudy.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.entity.Member;
+import study.querydslstudy.entity.Team;
+import study.querydslstudy.entity.TeamStats;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamStatsRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamStatsRepository teamStatsRepository;
+
+    @Autowired
+    TeamStatsUpdater teamStatsUpdater;
+
+    /**
+     * QuerydslBasicTest.grouping 과 같은 결과를 집계 테이블에서 읽는다.
+     * (테스트는 롤백되므로 커밋 직전 갱신 대신 refreshAll로 직접 계산)
+     */
+    @Test
+    public void teamStats() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("m1", 15, teamA));
+        em.persist(new Member("m2", 21, teamA));
+        em.persist(new Member("m3", 52, teamB));
+        em.persist(new Member("m4", 62, teamB));
+
+        teamStatsUpdater.refreshAll();
+
+        TeamStats statsA = teamStatsRepository.findByTeamName("teamA").get();
+        assertThat(statsA.getMemberCount()).isEqualTo(2);
+        assertThat(statsA.getAgeAvg()).isEqualTo(18);
+        assertThat(statsA.getAgeMin()).isEqualTo(15);
+        assertThat(statsA.getAgeMax()).isEqualTo(21);
+
+        TeamStats statsB = teamStatsRepository.findByTeamName("teamB").get();
+        assertThat(statsB.getAgeAvg()).isEqualTo(57);
+    }
+
+    /**
+     * refreshAll 은 호출한 쪽의 영속성 컨텍스트를 비우지 않는다.
+     */
+    @Test
+    public void refreshAllKeepsPersistenceContext() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        Member m1 = new Member("m1", 15, teamA);
+        em.persist(m1);
+
+        teamStatsUpdater.refreshAll();
+
+        assertThat(em.contains(m1)).isTrue();
+        m1.changeProfile(null, 16);
+        em.flush(); // 변경 감지가 그대로 동작한다.
+        assertThat(em.createQuery("select m.age from Member m where m.id = :id", Integer.class)
+                .setParameter("id", m1.getId())
+                .getSingleResult()).isEqualTo(16);
+    }
+}
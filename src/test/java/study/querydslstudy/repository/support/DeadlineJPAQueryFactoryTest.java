@@ -0,0 +1,45 @@
+package study.querydslstudy.repository.support;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DeadlineJPAQueryFactoryTest {
+
+    @AfterEach
+    public void after() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void noDeadline() throws Exception {
+        assertThat(DeadlineJPAQueryFactory.remainingTimeoutMs()).isEmpty();
+    }
+
+    @Test
+    public void roundUpToSeconds() throws Exception {
+        RequestDeadline.start(1500);
+
+        // JDBC timeout 은 초 단위 => 1초 미만으로 남아도 0(무제한)이 되지 않는다.
+        assertThat(DeadlineJPAQueryFactory.remainingTimeoutMs().getAsLong()).isEqualTo(2000);
+    }
+
+    @Test
+    public void deadlineExceeded() throws Exception {
+        RequestDeadline.start(0);
+        Thread.sleep(5);
+
+        assertThatThrownBy(DeadlineJPAQueryFactory::remainingTimeoutMs)
+                .isInstanceOf(QueryTimeoutException.class);
+    }
+
+    @Test
+    public void roundUpToSecondsBoundaries() throws Exception {
+        assertThat(DeadlineJPAQueryFactory.roundUpToSeconds(1)).isEqualTo(1000);
+        assertThat(DeadlineJPAQueryFactory.roundUpToSeconds(1000)).isEqualTo(1000);
+        assertThat(DeadlineJPAQueryFactory.roundUpToSeconds(1001)).isEqualTo(2000);
+    }
+}
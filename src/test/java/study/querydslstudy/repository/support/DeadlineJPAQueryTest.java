@@ -0,0 +1,79 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydslstudy.entity.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydslstudy.entity.QMember.member;
+
+/**
+ * 요청 마감이 실제 JPA 쿼리의 timeout 까지 전달되는지 본다.
+ * (테스트 설정의 기본 timeout 은 jakarta.persistence.query.timeout: 10000)
+ */
+@SpringBootTest
+@Transactional
+class DeadlineJPAQueryTest {
+
+    @Autowired
+    JPAQueryFactory qf;
+
+    @AfterEach
+    public void after() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void deadlineAtExecutionTime() throws Exception {
+        JPAQuery<Member> query = qf.selectFrom(member); // 마감 없이 조립
+
+        RequestDeadline.start(1500); // 실행 직전에 생긴 마감도 적용된다.
+
+        assertThat(timeoutSeconds(query)).isEqualTo(2);
+    }
+
+    @Test
+    public void noDeadlineKeepsDefault() throws Exception {
+        assertThat(timeoutSeconds(qf.selectFrom(member))).isEqualTo(10);
+    }
+
+    @Test
+    public void shorterOfOptionsAndDeadline() throws Exception {
+        QueryOptions options = QueryOptions.none().timeoutMs(3000);
+
+        RequestDeadline.start(1500);
+        assertThat(timeoutSeconds(options.applyTo(qf.selectFrom(member)))).isEqualTo(2); // 마감이 더 짧다.
+
+        RequestDeadline.start(8000);
+        assertThat(timeoutSeconds(options.applyTo(qf.selectFrom(member)))).isEqualTo(3); // 옵션이 더 짧다.
+    }
+
+    @Test
+    public void optionTimeoutRoundsUp() throws Exception {
+        QueryOptions options = QueryOptions.none().timeoutMs(400);
+
+        assertThat(timeoutSeconds(options.applyTo(qf.selectFrom(member)))).isEqualTo(1); // 0(무제한)이 되지 않는다.
+    }
+
+    @Test
+    public void deadlineExceededBeforeExecution() throws Exception {
+        JPAQuery<Member> query = qf.selectFrom(member);
+        RequestDeadline.start(1);
+        Thread.sleep(5);
+
+        assertThatThrownBy(query::fetch).isInstanceOf(QueryTimeoutException.class);
+        assertThatThrownBy(query::fetchCount).isInstanceOf(QueryTimeoutException.class);
+    }
+
+    private Integer timeoutSeconds(JPAQuery<?> query) {
+        return query.createQuery().unwrap(Query.class).getTimeout();
+    }
+}
@@ -0,0 +1,73 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.JPAExpressions;
+import org.junit.jupiter.api.Test;
+import study.querydslstudy.repository.support.PredicateCostAnalyzer.Shape;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydslstudy.entity.QMember.member;
+
+class PredicateCostAnalyzerTest {
+
+    PredicateCostAnalyzer analyzer = new PredicateCostAnalyzer(Set.of("id", "username", "age", "team.id"), 100, 10);
+
+    @Test
+    public void indexedPredicate() throws Exception {
+        Predicate predicate = member.age.between(10, 40).and(member.username.eq("member1"));
+
+        PredicateCostAnalyzer.Cost cost = analyzer.check(predicate);
+
+        assertThat(cost.getScans()).isZero();
+        assertThat(cost.getOrCount()).isZero();
+    }
+
+    @Test
+    public void unindexedScan() throws Exception {
+        // 인덱스 없는 team.name 비교 + contains
+        Predicate predicate = member.team.name.eq("teamA").and(member.username.contains("m"));
+
+        assertThat(analyzer.analyze(predicate).getScans()).isEqualTo(2);
+        assertThatThrownBy(() -> analyzer.check(predicate)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void prefixMatch() throws Exception {
+        // 인덱스 컬럼 접두어 검색 = 인덱스 범위 스캔
+        assertThat(analyzer.analyze(member.username.startsWith("mem")).getScans()).isZero();
+        assertThat(analyzer.analyze(member.username.like("mem%")).getScans()).isZero();
+
+        // 와일드카드로 시작하거나, 대소문자 무시(lower)거나, 인덱스 없는 컬럼이면 풀스캔
+        assertThat(analyzer.analyze(member.username.like("%mem")).getScans()).isEqualTo(1);
+        assertThat(analyzer.analyze(member.username.like("_em%")).getScans()).isEqualTo(1);
+        assertThat(analyzer.analyze(member.username.startsWithIgnoreCase("mem")).getScans()).isEqualTo(1);
+        assertThat(analyzer.analyze(member.team.name.startsWith("team")).getScans()).isEqualTo(1);
+    }
+
+    @Test
+    public void shape() throws Exception {
+        assertThat(analyzer.analyze(null).getShape()).isEqualTo(Shape.NONE);
+        assertThat(analyzer.analyze(member.age.goe(10).and(member.username.startsWith("m"))).getShape())
+                .isEqualTo(Shape.INDEX);
+        assertThat(analyzer.analyze(member.age.goe(10).or(member.id.eq(1L))).getShape()).isEqualTo(Shape.OR);
+        assertThat(analyzer.analyze(member.age.goe(10).or(member.username.contains("m"))).getShape())
+                .isEqualTo(Shape.SCAN);
+        assertThat(analyzer.analyze(member.age.goe(JPAExpressions.select(member.age.avg().intValue()).from(member)))
+                .getShape()).isEqualTo(Shape.SUBQUERY);
+    }
+
+    @Test
+    public void deepOrTree() throws Exception {
+        BooleanBuilder builder = new BooleanBuilder();
+        for (int i = 0; i < 20; i++) {
+            builder.or(member.id.eq((long) i));
+        }
+
+        assertThat(analyzer.analyze(builder).getOrCount()).isEqualTo(19);
+        assertThatThrownBy(() -> analyzer.check(builder)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
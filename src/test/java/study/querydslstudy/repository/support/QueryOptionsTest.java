@@ -0,0 +1,69 @@
+package study.querydslstudy.repository.support;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydslstudy.entity.QMember.member;
+
+/**
+ * 옵션이 JPQL 쿼리까지 전달되는지 Hibernate Query 에서 확인한다.
+ */
+@SpringBootTest
+@Transactional
+class QueryOptionsTest {
+
+    @Autowired
+    JPAQueryFactory qf;
+
+    @Test
+    public void applyTo() throws Exception {
+        QueryOptions options = QueryOptions.none()
+                .cacheable("member")
+                .fetchSize(100)
+                .readOnly()
+                .timeoutMs(3000)
+                .comment("QueryOptionsTest.applyTo");
+
+        Query<?> query = options.applyTo(qf.selectFrom(member)).createQuery().unwrap(Query.class);
+
+        assertThat(query.isCacheable()).isTrue();
+        assertThat(query.getCacheRegion()).isEqualTo("member");
+        assertThat(query.getFetchSize()).isEqualTo(100);
+        assertThat(query.isReadOnly()).isTrue();
+        assertThat(query.getTimeout()).isEqualTo(3); // 초 단위
+        assertThat(query.getComment()).isEqualTo("QueryOptionsTest.applyTo");
+    }
+
+    @Test
+    public void noneChangesNothing() throws Exception {
+        Query<?> plain = qf.selectFrom(member).createQuery().unwrap(Query.class);
+        Query<?> query = QueryOptions.none().applyTo(qf.selectFrom(member)).createQuery().unwrap(Query.class);
+
+        assertThat(query.isCacheable()).isEqualTo(plain.isCacheable());
+        assertThat(query.getFetchSize()).isEqualTo(plain.getFetchSize());
+        assertThat(query.isReadOnly()).isEqualTo(plain.isReadOnly());
+        assertThat(query.getTimeout()).isEqualTo(plain.getTimeout());
+        assertThat(query.getComment()).isEqualTo(plain.getComment());
+    }
+
+    @Test
+    public void immutable() throws Exception {
+        QueryOptions base = QueryOptions.none();
+        base.readOnly().fetchSize(10);
+
+        Query<?> query = base.applyTo(qf.selectFrom(member)).createQuery().unwrap(Query.class);
+        assertThat(query.isReadOnly()).isFalse();
+    }
+
+    @Test
+    public void invalidValues() throws Exception {
+        assertThatThrownBy(() -> QueryOptions.none().fetchSize(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> QueryOptions.none().timeoutMs(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}